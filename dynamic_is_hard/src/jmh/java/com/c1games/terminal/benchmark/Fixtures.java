@@ -0,0 +1,144 @@
+package com.c1games.terminal.benchmark;
+
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.action.UnitInformationContainer;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Canonical boards for the benchmarks, built as deploy phase frames so they go through the same GameState and
+ * StructBoard construction as the algo. Player 2's structures mirror player 1's.
+ * <p>
+ * The config is read from the path in the jmh.config system property, by default the one at the repository root.
+ */
+public class Fixtures {
+
+    public enum Layout {
+        // no structures
+        EMPTY,
+        // the turn 0 structures from StrategyMain
+        BASIC,
+        // full front lines, turret rows and supports, as seen late in a game
+        DENSE
+    }
+
+    public static final Config CONFIG = loadConfig();
+    public static final UnitInformationContainer UNIT_INFOS = new UnitInformationContainer(CONFIG);
+    private static final UnitTypeAtlas ATLAS = new UnitTypeAtlas(CONFIG);
+
+    private static Config loadConfig() {
+        try {
+            String path = System.getProperty("jmh.config", "../game-configs.json");
+            return Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get(path))), Config.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static GameState gameState(Layout layout) {
+        List<Placement> placements = new ArrayList<>();
+        if (layout == Layout.BASIC) {
+            basicStructures(placements);
+        } else if (layout == Layout.DENSE) {
+            denseStructures(placements);
+        }
+
+        StringBuilder p1 = new StringBuilder();
+        StringBuilder p2 = new StringBuilder();
+        appendUnits(p1, placements, false);
+        appendUnits(p2, placements, true);
+        String frame = "{\"turnInfo\":[0,30,-1,0],\"p1Stats\":[20.0,30.0,12.0,0],\"p2Stats\":[20.0,30.0,12.0,0],"
+                + "\"p1Units\":" + p1 + ",\"p2Units\":" + p2 + ",\"events\":{\"selfDestruct\":[],\"breach\":[],"
+                + "\"damage\":[],\"shield\":[],\"move\":[],\"spawn\":[],\"death\":[],\"attack\":[],\"melee\":[]}}";
+        FrameData data = FrameData.gson(ATLAS).fromJson(frame, FrameData.class);
+        return new GameState(CONFIG, data);
+    }
+
+    // Every edge tile a mobile unit can spawn on, for either player
+    public static List<Coords> edgeTiles() {
+        List<Coords> tiles = new ArrayList<>();
+        for (Coords[] edge : MapBounds.EDGE_LISTS)
+            for (Coords coords : edge)
+                tiles.add(coords);
+        return tiles;
+    }
+
+    private static void basicStructures(List<Placement> placements) {
+        placements.add(new Placement(3, 12, UnitType.Turret, false));
+        placements.add(new Placement(24, 12, UnitType.Turret, false));
+        placements.add(new Placement(14, 12, UnitType.Turret, false));
+        placements.add(new Placement(0, 13, UnitType.Wall, false));
+        placements.add(new Placement(27, 13, UnitType.Wall, false));
+        placements.add(new Placement(8, 12, UnitType.Turret, false));
+        placements.add(new Placement(20, 12, UnitType.Turret, false));
+    }
+
+    private static void denseStructures(List<Placement> placements) {
+        // front line of walls with a gap in the middle, upgraded at the corners
+        for (int x = 0; x < MapBounds.BOARD_SIZE; x++)
+            if (x < 12 || x > 15)
+                placements.add(new Placement(x, 13, UnitType.Wall, x < 3 || x > 24));
+        // turrets behind the walls, every other one upgraded
+        for (int x = 2; x < MapBounds.BOARD_SIZE - 2; x += 2)
+            placements.add(new Placement(x, 12, UnitType.Turret, x % 4 == 0));
+        // second line of turrets and walls funneling towards the gap
+        for (int x = 5; x < MapBounds.BOARD_SIZE - 5; x += 3)
+            placements.add(new Placement(x, 11, x % 2 == 0 ? UnitType.Turret : UnitType.Wall, false));
+        // supports in the back
+        for (int x = 12; x <= 15; x++)
+            for (int y = 7; y <= 9; y++)
+                placements.add(new Placement(x, y, UnitType.Support, y == 9));
+    }
+
+    private static void appendUnits(StringBuilder builder, List<Placement> placements, boolean mirror) {
+        UnitType[] types = UnitType.values();
+        builder.append('[');
+        for (int t = 0; t < types.length; t++) {
+            if (t > 0)
+                builder.append(',');
+            builder.append('[');
+            boolean first = true;
+            for (Placement placement : placements) {
+                boolean listed = types[t] == placement.type || (types[t] == UnitType.Upgrade && placement.upgraded);
+                if (!listed)
+                    continue;
+                int x = mirror ? MapBounds.BOARD_SIZE - 1 - placement.x : placement.x;
+                int y = mirror ? MapBounds.BOARD_SIZE - 1 - placement.y : placement.y;
+                double health = UNIT_INFOS.startHealth[placement.type.ordinal()][placement.upgraded ? 1 : 0];
+                String id = (mirror ? "2" : "1") + (x * MapBounds.BOARD_SIZE + y);
+                if (!first)
+                    builder.append(',');
+                builder.append('[').append(x).append(',').append(y).append(',').append(health).append(",\"")
+                        .append(id).append("\"]");
+                first = false;
+            }
+            builder.append(']');
+        }
+        builder.append(']');
+    }
+
+    private static class Placement {
+        final int x;
+        final int y;
+        final UnitType type;
+        final boolean upgraded;
+
+        Placement(int x, int y, UnitType type, boolean upgraded) {
+            this.x = x;
+            this.y = y;
+            this.type = type;
+            this.upgraded = upgraded;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.c1games.terminal.benchmark;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.action.Pathfinder;
+import com.c1games.terminal.algo.action.StructBoard;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.pathfinding.IllegalPathStartException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paths from every edge tile to the opposite edge, with the distance field pathfinder used by the simulators and the
+ * starter kit pathfinder used by GameState.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    @Param({ "EMPTY", "BASIC", "DENSE" })
+    public Fixtures.Layout layout;
+
+    private GameState move;
+    private StructBoard board;
+    private List<Coords> edgeTiles;
+
+    @Setup
+    public void setup() {
+        move = Fixtures.gameState(layout);
+        board = new StructBoard(move, Fixtures.UNIT_INFOS, false);
+        edgeTiles = Fixtures.edgeTiles();
+    }
+
+    // A new pathfinder each time, so that its fields are computed from scratch
+    @Benchmark
+    public void fieldsFromEveryEdgeTile(Blackhole blackhole) {
+        Pathfinder pathfinder = new Pathfinder(board);
+        for (Coords start : edgeTiles)
+            blackhole.consume(pathfinder.getPath(start, targetEdge(start), Pathfinder.Direction.HORIZONTAL));
+    }
+
+    @Benchmark
+    public void starterFromEveryEdgeTile(Blackhole blackhole) {
+        for (Coords start : edgeTiles) {
+            try {
+                blackhole.consume(move.pathfind(start, targetEdge(start)));
+            } catch (IllegalPathStartException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    private static int targetEdge(Coords start) {
+        if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_BOTTOM_LEFT][start.x][start.y])
+            return MapBounds.EDGE_TOP_RIGHT;
+        else if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_BOTTOM_RIGHT][start.x][start.y])
+            return MapBounds.EDGE_TOP_LEFT;
+        else if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_TOP_LEFT][start.x][start.y])
+            return MapBounds.EDGE_BOTTOM_RIGHT;
+        else
+            return MapBounds.EDGE_BOTTOM_LEFT;
+    }
+}
@@ -0,0 +1,104 @@
+package com.c1games.terminal.benchmark;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.action.ActionSimulator;
+import com.c1games.terminal.algo.action.ArraySimulator;
+import com.c1games.terminal.algo.action.Simulator;
+import com.c1games.terminal.algo.action.StructBoard;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.strategy.Defense;
+import com.c1games.terminal.strategy.UnitPlacement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single action phase simulations with each engine, and the sweep of opponent attacks Defense runs for every build it
+ * considers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({ "EMPTY", "BASIC", "DENSE" })
+    public Fixtures.Layout layout;
+
+    private GameState move;
+    private StructBoard board;
+    private Coords scoutSpawn;
+    private Coords demolisherSpawn;
+    private List<UnitPlacement> attacks;
+
+    @Setup
+    public void setup() {
+        move = Fixtures.gameState(layout);
+        board = new StructBoard(move, Fixtures.UNIT_INFOS, false);
+        scoutSpawn = MapBounds.EDGE_LISTS[MapBounds.EDGE_TOP_LEFT][5];
+        demolisherSpawn = MapBounds.EDGE_LISTS[MapBounds.EDGE_TOP_RIGHT][3];
+
+        // the shape of Defense.opponentAttacks, without its shuffling
+        attacks = new ArrayList<>();
+        for (int edge : new int[] { MapBounds.EDGE_TOP_LEFT, MapBounds.EDGE_TOP_RIGHT }) {
+            for (int i = 0; i < MapBounds.BOARD_SIZE / 2; i += 3) {
+                attacks.add(new UnitPlacement(MapBounds.EDGE_LISTS[edge][i], UnitType.Scout, 12));
+                attacks.add(new UnitPlacement(MapBounds.EDGE_LISTS[edge][i], UnitType.Demolisher, 4));
+            }
+        }
+    }
+
+    @Benchmark
+    public Simulator arrayScouts() {
+        Simulator sim = new ArraySimulator(Fixtures.UNIT_INFOS, board, move);
+        sim.spawnUnits(scoutSpawn, UnitType.Scout, 12);
+        sim.run();
+        return sim;
+    }
+
+    @Benchmark
+    public Simulator arrayDemolishers() {
+        Simulator sim = new ArraySimulator(Fixtures.UNIT_INFOS, board, move);
+        sim.spawnUnits(demolisherSpawn, UnitType.Demolisher, 6);
+        sim.run();
+        return sim;
+    }
+
+    @Benchmark
+    public Simulator actionScouts() {
+        Simulator sim = new ActionSimulator(Fixtures.UNIT_INFOS, board, move);
+        sim.spawnUnits(scoutSpawn, UnitType.Scout, 12);
+        sim.run();
+        return sim;
+    }
+
+    @Benchmark
+    public Simulator actionDemolishers() {
+        Simulator sim = new ActionSimulator(Fixtures.UNIT_INFOS, board, move);
+        sim.spawnUnits(demolisherSpawn, UnitType.Demolisher, 6);
+        sim.run();
+        return sim;
+    }
+
+    @Benchmark
+    public List<Double> attackDamages() {
+        Defense defense = new Defense(board, move, Fixtures.UNIT_INFOS, null);
+        return defense.attackDamages(attacks, 1.0, null);
+    }
+}
@@ -0,0 +1,63 @@
+package com.c1games.terminal.benchmark;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.action.StructBoard;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.units.UnitType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building boards from a GameState, and the copy then build that every candidate placement does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructBoardBenchmark {
+
+    @Param({ "EMPTY", "BASIC", "DENSE" })
+    public Fixtures.Layout layout;
+
+    private GameState move;
+    private StructBoard board;
+    private Coords buildCoords;
+
+    @Setup
+    public void setup() {
+        move = Fixtures.gameState(layout);
+        board = new StructBoard(move, Fixtures.UNIT_INFOS, false);
+        // open in every layout
+        buildCoords = new Coords(13, 5);
+    }
+
+    @Benchmark
+    public StructBoard fromGameState() {
+        return new StructBoard(move, Fixtures.UNIT_INFOS, false);
+    }
+
+    @Benchmark
+    public StructBoard copy() {
+        return new StructBoard(board);
+    }
+
+    @Benchmark
+    public StructBoard copyAndBuild() {
+        StructBoard copy = new StructBoard(board);
+        copy.build(Fixtures.UNIT_INFOS, UnitType.Turret, buildCoords);
+        return copy;
+    }
+}
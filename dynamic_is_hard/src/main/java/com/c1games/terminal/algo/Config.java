@@ -2,6 +2,7 @@ package com.c1games.terminal.algo;
 
 import com.c1games.terminal.algo.map.Unit;
 import com.c1games.terminal.algo.serialization.JsonDeserializeEnumFromInt;
+import com.c1games.terminal.algo.units.UnitStats;
 import com.c1games.terminal.algo.units.UnitType;
 import com.google.gson.*;
 
@@ -124,9 +125,9 @@ public final class Config {
         }
 
         /**
-         * This function should only be called by Unit.java Because this should never be
-         * called on the unit information in the config directly but on an instance copy
-         * of this in a unit. Otherwise you will modify the default values of a unit.
+         * This function should only be called on copies, such as those UnitStats are compiled from. It should never
+         * be called on the unit information in the config directly, otherwise you will modify the default values of a
+         * unit.
          */
         public void upgrade() {
             if (upgrade.get() != null) {
@@ -175,6 +176,24 @@ public final class Config {
 
     public List<UnitInformation> unitInformation;
 
+    // compiled from unitInformation when first needed
+    private transient volatile UnitStats[][] unitStats;
+
+    /**
+     * The stats of a unit type, upgraded or not, which are shared by every unit of that type.
+     */
+    public UnitStats unitStats(UnitType type, boolean upgraded) {
+        UnitStats[][] stats = unitStats;
+        if (stats == null) {
+            synchronized (this) {
+                if (unitStats == null)
+                    unitStats = UnitStats.compile(unitInformation);
+                stats = unitStats;
+            }
+        }
+        return stats[type.ordinal()][upgraded ? 1 : 0];
+    }
+
     public static final class Resources {
         public float turnIntervalForBitCapSchedule;
         public float turnIntervalForBitSchedule;
@@ -232,6 +251,20 @@ public final class Config {
 
     public Mechanics mechanics;
 
+    public static final class TimingAndReplay {
+        // milliseconds a turn may take before it is penalized, and before the algo is timed out
+        public int waitTimeBotSoft;
+        public int waitTimeBotMax;
+
+        @Override
+        public String toString() {
+            return "TimingAndReplay{" + "waitTimeBotSoft=" + waitTimeBotSoft + ", waitTimeBotMax=" + waitTimeBotMax
+                    + '}';
+        }
+    }
+
+    public TimingAndReplay timingAndReplay; // nullable
+
     private static final class OptionalDoubleDeserializer implements JsonDeserializer<OptionalDouble> {
         @Override
         public OptionalDouble deserialize(JsonElement jsonElement, Type type,
@@ -290,6 +323,6 @@ public final class Config {
     @Override
     public String toString() {
         return "Config{" + "debug=" + debug + ", unitInformation=" + unitInformation + ", resources=" + resources
-                + ", mechanics=" + mechanics + '}';
+                + ", mechanics=" + mechanics + ", timingAndReplay=" + timingAndReplay + '}';
     }
 }
@@ -7,6 +7,7 @@ import com.google.gson.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * GSON-based representation of the data received every frame denoting the game state.
@@ -345,7 +346,27 @@ public class FrameData {
                     '}';
         }
     }
-    public Events events;
+    public Events events; // nullable, and only set once read through events() if the frame was parsed with lazy events
+    private transient Supplier<Events> deferredEvents;
+
+    /**
+     * The events of this frame, decoding them first if that was deferred. Nullable.
+     */
+    public Events events() {
+        if (deferredEvents != null) {
+            events = deferredEvents.get();
+            deferredEvents = null;
+        }
+        return events;
+    }
+
+    /**
+     * Decode the events of this frame with decoder when they are first read through events(), rather than now.
+     */
+    public void deferEvents(Supplier<Events> decoder) {
+        events = null;
+        deferredEvents = decoder;
+    }
 
     @Override
     public String toString() {
@@ -360,12 +381,12 @@ public class FrameData {
 
     public static Gson gson(UnitTypeAtlas atlas) {
         return new GsonBuilder()
-                .registerTypeAdapter(Coords.class, new JsonDeserializeClassFromTuple<>(Coords.class, () -> new Coords(-1, -1)))
+                .registerTypeAdapter(Coords.class, new CoordsTypeAdapter())
                 .registerTypeAdapter(UnitType.class, new UnitTypeDeserializer(atlas))
                 .registerTypeAdapter(TurnInfo.Phase.class, new JsonDeserializeEnumFromInt<>(TurnInfo.Phase.class))
                 .registerTypeAdapter(TurnInfo.class, new JsonDeserializeClassFromTuple<>(TurnInfo.class, TurnInfo::new))
                 .registerTypeAdapter(PlayerStats.class, new JsonDeserializeClassFromTuple<>(PlayerStats.class, PlayerStats::new))
-                .registerTypeAdapter(PlayerUnit.class, new JsonDeserializeClassFromTuple<>(PlayerUnit.class, PlayerUnit::new))
+                .registerTypeAdapter(PlayerUnit.class, new PlayerUnitTypeAdapter())
                 .registerTypeAdapter(PlayerUnitList.class, new TypedListDeserializer<>(PlayerUnitList::new, PlayerUnit.class))
                 .registerTypeAdapter(PlayerUnits.class, new JsonDeserializeClassFromTuple<>(PlayerUnits.class, PlayerUnits::new))
                 .registerTypeAdapter(EndStats.Winner.class, new JsonDeserializeEnumFromInt<>(EndStats.Winner.class))
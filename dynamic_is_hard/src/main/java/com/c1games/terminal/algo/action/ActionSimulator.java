@@ -2,7 +2,6 @@ package com.c1games.terminal.algo.action;
 
 import com.c1games.terminal.algo.Coords;
 import com.c1games.terminal.algo.PlayerId;
-import com.c1games.terminal.algo.Config;
 import com.c1games.terminal.algo.map.GameState;
 import com.c1games.terminal.algo.map.MapBounds;
 import com.c1games.terminal.algo.map.Unit;
@@ -18,8 +17,10 @@ import java.util.Map;
 import java.util.AbstractMap;
 import java.util.TreeMap;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
 
-public class ActionSimulator {
+public class ActionSimulator extends Simulator {
 
     private final StructBoard board;
     private final List<Coords> turretCoords;
@@ -27,13 +28,10 @@ public class ActionSimulator {
     private final List<MobileUnits> mobileUnits;
 
     private final UnitInformationContainer unitInfos;
-
-    public int p1LivesLost = 0;
-    public int p2LivesLost = 0;
-    public double p1CoresLost = 0;
-    public double p2CoresLost = 0;
-    public Deque<Coords> unitPath = new LinkedList<>();
-    public List<Coords> p1LostStructCoords = new ArrayList<>();
+    // structures which would shorten a path if removed, with the edge it leads to, found again whenever structures
+    // are removed
+    private final List<int[]> pathCuts = new ArrayList<>();
+    private boolean pathsChanged = true;
 
     // // copies structures from another simulator instance
     // // for given coords, keeps first in list and ignores others
@@ -88,6 +86,8 @@ public class ActionSimulator {
     // GameState used to reference id of turrets for attack order
     public ActionSimulator(UnitInformationContainer unitInfos, StructBoard startBoard, GameState move) {
         this.unitInfos = unitInfos;
+        // simulations from the same start board share its distance fields
+        startBoard.computeFields();
         board = new StructBoard(startBoard);
 
         SortedMap<String, Coords> turretById = new TreeMap<>(Collections.reverseOrder());
@@ -95,21 +95,18 @@ public class ActionSimulator {
         supportCoords = new LinkedList<>();
         mobileUnits = new LinkedList<>();
         // Find existing turrets and supports
-        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
-            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
-                Coords coords = new Coords(x, y);
-                Structure struct = board.getLocation(coords);
-                if (struct != null) {
-                    Unit unit = move.getWallAt(coords);
-                    if (struct.type == UnitType.Turret) {
-                        if (unit != null)
-                            turretById.put(unit.id, coords);
-                        else
-                            turretCoords.add(coords);
-                    } else if (struct.type == UnitType.Support)
-                        supportCoords.add(coords);
-                }
-            }
+        for (int tile = BitBoard.next(board.occupied, 0); tile >= 0; tile = BitBoard.next(board.occupied, tile + 1)) {
+            Coords coords = new Coords(tile / MapBounds.BOARD_SIZE, tile % MapBounds.BOARD_SIZE);
+            Structure struct = board.getLocation(coords);
+            Unit unit = move.getWallAt(tile);
+            if (struct.type == UnitType.Turret) {
+                // turrets spawned this turn all share one id, so they are ordered with the unknown ones
+                if (unit != null && !unit.id.equals(Unit.SPAWNED_ID))
+                    turretById.put(unit.id, coords);
+                else
+                    turretCoords.add(coords);
+            } else if (struct.type == UnitType.Support)
+                supportCoords.add(coords);
         }
 
         for (Coords coords : turretById.values()) {
@@ -121,19 +118,15 @@ public class ActionSimulator {
         // }
     }
 
-    public boolean spawnUnit(Coords coords, UnitType type) {
-        return spawnUnits(coords, type, 1);
-    }
-
-    // Immediately place or remove units ignoring resource cost
+    @Override
     public boolean spawnUnits(Coords coords, UnitType type, int quantity) {
         if (quantity <= 0)
             return false;
 
         Structure struct = board.getLocation(coords);
-        Config.UnitInformation unitInfo = unitInfos.getInfo(type, false);
+        int t = type.ordinal();
 
-        if (struct == null && unitInfo.unitCategory.orElse(-1) == GameState.WalkerUnitCategory) {
+        if (struct == null && unitInfos.unitCategory[t][0] == GameState.WalkerUnitCategory) {
             int targetEdge;
             if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_BOTTOM_LEFT][coords.x][coords.y])
                 targetEdge = MapBounds.EDGE_TOP_RIGHT;
@@ -146,7 +139,7 @@ public class ActionSimulator {
             else
                 return false;
 
-            MobileUnits units = new MobileUnits(type, quantity, unitInfo.startHealth.getAsDouble(), coords, targetEdge);
+            MobileUnits units = new MobileUnits(type, quantity, unitInfos.startHealth[t][0], coords, targetEdge);
             mobileUnits.add(units);
             return true;
         } else if (type == UnitType.Remove) {
@@ -163,23 +156,32 @@ public class ActionSimulator {
         }
     }
 
-    // Simulates action phase until completion
+    @Override
     public void run() {
 
-        pathfind();
         // if (!mobileUnits.isEmpty() && mobileUnits.get(0).type == UnitType.Demolisher
         // && mobileUnits.get(0).getPlayer() == PlayerId.Player2)
         // System.err.println("init path: " + mobileUnits.get(0).path);
         for (int frame = 1; !mobileUnits.isEmpty(); frame++) {
             List<Coords> toRemoveCoords = new ArrayList<>();
+            if (attribution != null && pathsChanged) {
+                findPathCuts();
+                pathsChanged = false;
+            }
+            if (traffic != null && frame == 1)
+                for (MobileUnits units : mobileUnits)
+                    recordEntry(units);
 
             // Move mobile units
             unitPath.add(mobileUnits.get(0).coords);
             for (Iterator<MobileUnits> itr = mobileUnits.iterator(); itr.hasNext();) {
                 MobileUnits units = itr.next();
-                double speed = unitInfos.getInfo(units.type, false).speed.getAsDouble();
+                double speed = unitInfos.speed[units.type.ordinal()][0];
                 if ((int) (frame * speed) - (int) ((frame - 1) * speed) > 0) {
-                    if (units.path.isEmpty()) {
+                    if (attribution != null)
+                        attributeSteps(units);
+                    Coords next = board.getPathfinder().nextStep(units.coords, units.targetEdge, units.lastDirection);
+                    if (next == null) {
                         if (MapBounds.IS_ON_EDGE[units.targetEdge][units.coords.x][units.coords.y]) {
                             if (units.getPlayer() == PlayerId.Player1)
                                 p2LivesLost += units.healths.size();
@@ -189,13 +191,17 @@ public class ActionSimulator {
                             toRemoveCoords.addAll(selfDestruct(units));
                         }
                         itr.remove();
+                        continue;
                     } else {
-                        Coords next = units.path.removeFirst();
                         units.lastDirection = (units.coords.x == next.x) ? Pathfinder.Direction.VERTICAL
                                 : Pathfinder.Direction.HORIZONTAL;
                         units.coords = next;
+                        if (traffic != null)
+                            recordEntry(units);
                     }
                 }
+                if (traffic != null && units.getPlayer() == PlayerId.Player2)
+                    traffic.frames[tile(units.coords)]++;
             }
 
             // Add shielding
@@ -205,15 +211,18 @@ public class ActionSimulator {
                 if (support == null || support.type != UnitType.Support) {
                     itr.remove();
                 } else {
-                    Config.UnitInformation unitInfo = unitInfos.getInfo(UnitType.Support, support.upgraded);
+                    int t = UnitType.Support.ordinal();
+                    int upgraded = support.upgraded ? 1 : 0;
                     int yValue = Structure.getPlayer(coords.y) == PlayerId.Player1 ? coords.y
                             : MapBounds.BOARD_SIZE - 1 - coords.y;
-                    double shieldAmount = unitInfo.shieldPerUnit.orElse(0)
-                            + unitInfo.shieldBonusPerY.orElse(0) * yValue;
+                    double shieldAmount = unitInfos.shieldPerUnit[t][upgraded]
+                            + unitInfos.shieldBonusPerY[t][upgraded] * yValue;
                     for (MobileUnits units : mobileUnits) {
-                        if (coords.distance(units.coords) <= unitInfo.shieldRange.orElse(0)
+                        if (coords.distance(units.coords) <= unitInfos.shieldRange[t][upgraded]
                                 && units.shieldsFrom.add(coords)) {
                             units.takeSplashDamage(-shieldAmount);
+                            if (attribution != null)
+                                attribution.shieldGiven[tile(coords)] += shieldAmount * units.healths.size();
                         }
                     }
                 }
@@ -226,16 +235,19 @@ public class ActionSimulator {
                 if (turret == null || turret.type != UnitType.Turret) {
                     itr.remove();
                 } else {
-                    Config.UnitInformation unitInfo = unitInfos.getInfo(UnitType.Turret, turret.upgraded);
-                    MobileUnits target = getMobileTarget(coords, unitInfo.attackRange.getAsDouble(),
+                    int t = UnitType.Turret.ordinal();
+                    int upgraded = turret.upgraded ? 1 : 0;
+                    MobileUnits target = getMobileTarget(coords, unitInfos.attackRange[t][upgraded],
                             Structure.getPlayer(coords.y));
                     if (target != null) {
-                        target.takeDamage(unitInfo.attackDamageWalker.orElse(0));
+                        target.takeDamage(unitInfos.attackDamageWalker[t][upgraded]);
+                        if (attribution != null)
+                            attribution.damageDealt[tile(coords)] += unitInfos.attackDamageWalker[t][upgraded];
                     }
                 }
             }
             for (MobileUnits units : mobileUnits) {
-                Config.UnitInformation unitInfo = unitInfos.getInfo(units.type);
+                int t = units.type.ordinal();
                 // major issue: interceptor has attackDamageTower (bug?)
                 // boolean canAttackStructures = false;
                 // if (unitInfo.attackDamageTower.isPresent())
@@ -244,20 +256,22 @@ public class ActionSimulator {
                 // continue;
                 boolean canAttackStructures = units.type != UnitType.Interceptor;
                 for (int i = 0; i < units.healths.size(); i++) {
-                    double damage = unitInfo.attackDamageWalker.getAsDouble();
+                    double damage = unitInfos.attackDamageWalker[t][0];
                     GameUnit target;
+                    Coords coords = null;
                     if (canAttackStructures) {
-                        Map.Entry<GameUnit, Coords> pair = getAnyTarget(units.coords,
-                                unitInfo.attackRange.getAsDouble(), units.getPlayer());
+                        Map.Entry<GameUnit, Coords> pair = getAnyTarget(units.coords, unitInfos.attackRange[t][0],
+                                units.getPlayer());
                         target = pair.getKey();
-                        Coords coords = pair.getValue();
+                        coords = pair.getValue();
 
                         if (target != null && target.isStructure()) {
                             Structure struct = (Structure) target;
 
-                            Config.UnitInformation targetInfo = unitInfos.getInfo(struct.type, struct.upgraded);
+                            int st = struct.type.ordinal();
+                            int upgraded = struct.upgraded ? 1 : 0;
                             double coreValue = Math.min(damage, target.getTargetHealth())
-                                    / targetInfo.startHealth.getAsDouble() * targetInfo.cost1.getAsDouble();
+                                    / unitInfos.startHealth[st][upgraded] * unitInfos.cost1[st][upgraded];
                             if (units.getPlayer() == PlayerId.Player1)
                                 p2CoresLost += coreValue;
                             else if (units.getPlayer() == PlayerId.Player2)
@@ -267,10 +281,14 @@ public class ActionSimulator {
                                 toRemoveCoords.add(coords);
                         }
                     } else {
-                        target = getMobileTarget(units.coords, unitInfo.attackRange.getAsDouble(), units.getPlayer());
+                        target = getMobileTarget(units.coords, unitInfos.attackRange[t][0], units.getPlayer());
                     }
-                    if (target != null) {
-                        target.takeDamage(damage);
+                    if (target != null && target.isStructure()) {
+                        board.damage(coords, damage);
+                        if (attribution != null)
+                            attribution.damageTaken[tile(coords)] += damage;
+                    } else if (target != null) {
+                        ((MobileUnits) target).takeDamage(damage);
                     } else {
                         // if no target, other units on same tile also have no target
                         break;
@@ -283,6 +301,7 @@ public class ActionSimulator {
                 board.setLocation(coords, null);
                 if (Structure.getPlayer(coords.y) == PlayerId.Player1)
                     p1LostStructCoords.add(coords);
+                pathsChanged = true;
             }
             for (Iterator<MobileUnits> itr = mobileUnits.iterator(); itr.hasNext();) {
                 MobileUnits units = itr.next();
@@ -291,18 +310,6 @@ public class ActionSimulator {
                     itr.remove();
                 }
             }
-
-            // If a structure was destroyed, paths may change
-            if (!toRemoveCoords.isEmpty())
-                pathfind();
-        }
-    }
-
-    // Recompute and set pathing for mobile units
-    private void pathfind() {
-        Pathfinder pather = new Pathfinder(board);
-        for (MobileUnits units : mobileUnits) {
-            units.path = pather.getPath(units.coords, units.targetEdge, units.lastDirection);
         }
     }
 
@@ -310,7 +317,7 @@ public class ActionSimulator {
         // config.mechanics not initializated ?
         // float range = config.mechanics.selfDestructRadius;
         double radius = 1.5;
-        double damage = unitInfos.getInfo(units.type, false).startHealth.getAsDouble() * units.healths.size();
+        double damage = unitInfos.startHealth[units.type.ordinal()][0] * units.healths.size();
 
         List<Coords> deadStructCoords = new ArrayList<>();
         // check board area for enemy structures
@@ -319,10 +326,11 @@ public class ActionSimulator {
             for (int y = units.coords.y - window; y <= units.coords.y + window; y++) {
                 Coords coords = new Coords(x, y);
                 if (units.coords.distance(coords) <= radius && units.getPlayer() != Structure.getPlayer(y)) {
-                    Structure struct = board.getLocation(coords);
-                    if (struct != null) {
-                        struct.takeDamage(damage);
-                        if (struct.getTargetHealth() <= 0)
+                    if (board.getLocation(coords) != null) {
+                        board.damage(coords, damage);
+                        if (attribution != null)
+                            attribution.damageTaken[tile(coords)] += damage;
+                        if (board.getLocation(coords).getTargetHealth() <= 0)
                             deadStructCoords.add(coords);
                     }
                 }
@@ -341,6 +349,68 @@ public class ActionSimulator {
         return deadStructCoords;
     }
 
+    // Mark the structures next to a pocket some units are in, which would change their path if removed, and find those
+    // which would shorten a path to an edge some units are heading for, to be checked as units move
+    private void findPathCuts() {
+        Pathfinder pathfinder = board.getPathfinder();
+        Set<Integer> edges = new TreeSet<>();
+        Set<Integer> pockets = new TreeSet<>();
+        for (MobileUnits units : mobileUnits) {
+            edges.add(units.targetEdge);
+            if (pathfinder.inPocket(tile(units.coords), units.targetEdge)) {
+                long[] pocket = pathfinder.connected(tile(units.coords));
+                for (int tile = BitBoard.next(pocket, 0); tile >= 0; tile = BitBoard.next(pocket, tile + 1))
+                    pockets.add(tile);
+            }
+        }
+        pathCuts.clear();
+        for (int tile = BitBoard.next(board.occupied, 0); tile >= 0; tile = BitBoard.next(board.occupied, tile + 1)) {
+            if (attribution.onPathCut[tile])
+                continue;
+            int x = tile / MapBounds.BOARD_SIZE;
+            int y = tile % MapBounds.BOARD_SIZE;
+            if ((x + 1 < MapBounds.BOARD_SIZE && pockets.contains(tile + MapBounds.BOARD_SIZE))
+                    || (x > 0 && pockets.contains(tile - MapBounds.BOARD_SIZE))
+                    || (y + 1 < MapBounds.BOARD_SIZE && pockets.contains(tile + 1))
+                    || (y > 0 && pockets.contains(tile - 1))) {
+                attribution.onPathCut[tile] = true;
+                continue;
+            }
+            for (int edge : edges) {
+                if (pathfinder.wouldShorten(tile, edge))
+                    pathCuts.add(new int[] { tile, edge });
+            }
+        }
+    }
+
+    // Mark the structures whose removal could change the next step of units about to move
+    private void attributeSteps(MobileUnits units) {
+        Pathfinder pathfinder = board.getPathfinder();
+        int tile = tile(units.coords);
+        for (int n = 0; n < 4; n++) {
+            int x = units.coords.x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int y = units.coords.y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (board.getLocation(x, y) != null
+                    && pathfinder.wouldBeStep(tile, x * MapBounds.BOARD_SIZE + y, units.targetEdge))
+                attribution.onPathCut[x * MapBounds.BOARD_SIZE + y] = true;
+        }
+        for (int[] cut : pathCuts)
+            if (cut[1] == units.targetEdge && pathfinder.couldShortenNear(tile, cut[0], units.targetEdge))
+                attribution.onPathCut[cut[0]] = true;
+    }
+
+    // Add the health of units of player 2 to the tile they entered
+    private void recordEntry(MobileUnits units) {
+        if (units.getPlayer() != PlayerId.Player2)
+            return;
+        for (double health : units.healths)
+            traffic.health[tile(units.coords)] += health;
+    }
+
+    private static int tile(Coords coords) {
+        return coords.x * MapBounds.BOARD_SIZE + coords.y;
+    }
+
     // Chooses target for a unit based on following priorities:
     // (1) Mobile units over Structures
     // (2) nearest
@@ -354,34 +424,23 @@ public class ActionSimulator {
         if (targetUnit != null)
             return new AbstractMap.SimpleImmutableEntry<>(targetUnit, targetUnit.coords);
 
-        // if none, then check structure targets
+        // if none, then check structure targets in order, stopping after the first ring with a target
+        int[] dxs = TargetOrder.DX[player == PlayerId.Player1 ? 0 : 1];
+        int[] dys = TargetOrder.DY[player == PlayerId.Player1 ? 0 : 1];
+        int[] squaredDistances = TargetOrder.SQUARED_DISTANCE[player == PlayerId.Player1 ? 0 : 1];
+        int rangeSquared = TargetOrder.squaredRange(range);
         Structure targetStruct = null;
-        double targetDistTo = 2 * range;
-        double targetHealth = 1000;
         Coords targetCoords = null;
-
-        int window = (int) range;
-        // Searchs bottom up for player 1 and top down for player 2
-        int[] yValues = new int[window * 2 + 1];
-        for (int i = 0; i < yValues.length; i++)
-            yValues[i] = (player == PlayerId.Player1) ? (coords.y - window + i) : (coords.y + window - i);
-        for (int y : yValues) {
-            for (int x = coords.x - window; x <= coords.x + window; x++) {
-                Coords here = new Coords(x, y);
-                Structure struct = board.getLocation(here);
-
-                if (struct != null && Structure.getPlayer(y) != player) {
-                    double dist = coords.distance(here);
-                    double health = struct.getTargetHealth();
-                    if (dist <= range && health > 0
-                            && (dist < targetDistTo || (targetDistTo == dist && health < targetHealth))) {
-                        targetStruct = struct;
-                        targetDistTo = dist;
-                        targetHealth = health;
-                        targetCoords = here;
-                    }
-                }
-
+        for (int i = 0; i < squaredDistances.length && squaredDistances[i] <= rangeSquared; i++) {
+            if (targetStruct != null && squaredDistances[i] != squaredDistances[i - 1])
+                break;
+            int x = coords.x + dxs[i];
+            int y = coords.y + dys[i];
+            Structure struct = board.getLocation(x, y);
+            if (struct != null && Structure.getPlayer(y) != player && struct.getTargetHealth() > 0
+                    && (targetStruct == null || struct.getTargetHealth() < targetStruct.getTargetHealth())) {
+                targetStruct = struct;
+                targetCoords = new Coords(x, y);
             }
         }
         return new AbstractMap.SimpleImmutableEntry<>(targetStruct, targetCoords);
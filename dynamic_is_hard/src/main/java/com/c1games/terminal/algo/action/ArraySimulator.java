@@ -0,0 +1,647 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.map.Unit;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Simulation engine with the same behavior as ActionSimulator, but which keeps all of its state in primitive arrays
+ * indexed by tile id (x * BOARD_SIZE + y) and mobile unit stack, so that running the action phase allocates nothing per
+ * frame. Results are copied into the shared Simulator fields once the simulation is finished.
+ */
+public class ArraySimulator extends Simulator {
+
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+    private static final int TILES = SIZE * SIZE;
+    private static final int WORDS = (TILES + 63) / 64;
+    private static final byte EMPTY = -1;
+    private static final int PLAYER_1 = 1;
+    private static final int PLAYER_2 = 2;
+    private static final int NUM_TYPES = UnitType.values().length;
+
+    // Coords.distance for each squared distance, so that ranges compare exactly as in ActionSimulator
+    private static final float[] DISTANCE = new float[2 * SIZE * SIZE];
+    static {
+        for (int i = 0; i < DISTANCE.length; i++)
+            DISTANCE[i] = (float) Math.sqrt(i);
+    }
+
+    private static final int WALL = UnitType.Wall.ordinal();
+    private static final int SUPPORT = UnitType.Support.ordinal();
+    private static final int TURRET = UnitType.Turret.ordinal();
+    private static final int INTERCEPTOR = UnitType.Interceptor.ordinal();
+
+    // unit stats, shared with the container and indexed by type ordinal and then upgraded
+    private final int[][] category;
+    private final double[][] speed;
+    private final double[][] startHealth;
+    private final double[][] cost;
+    private final int[][] attackRangeSquared;
+    private final int[][] shieldRangeSquared;
+    private final double[][] damageWalker;
+    private final double[][] shieldPerUnit;
+    private final double[][] shieldBonusPerY;
+
+    // structures, indexed by tile
+    private final byte[] structType = new byte[TILES];
+    private final double[] structHealth = new double[TILES];
+    private final boolean[] structUpgraded = new boolean[TILES];
+
+    // tiles of turrets and supports, in the order they act
+    private int[] turrets = new int[16];
+    private int numTurrets = 0;
+    private int[] supports = new int[16];
+    private int numSupports = 0;
+
+    // turrets whose upgraded range covers each tile, as linked lists through coverNext starting at coverHead. Entries
+    // of removed turrets are skipped rather than unlinked
+    private final int[] coverHead = new int[TILES];
+    private int[] coverNext = new int[64];
+    private int[] coverTurret = new int[64];
+    private int numCover = 0;
+    // per frame, turrets with an enemy stack in range
+    private final long[] inRange = new long[WORDS];
+
+    // mobile unit stacks, indexed by stack
+    private int numStacks = 0;
+    private byte[] stackType = new byte[4];
+    private int[] stackTile = new int[4];
+    private int[] stackEdge = new int[4];
+    private int[] stackPlayer = new int[4];
+    private boolean[] stackVertical = new boolean[4];
+    private int[] stackSize = new int[4];
+    private int[] stackHealthStart = new int[4];
+    // tiles of the supports which have already shielded a stack, WORDS bits per stack
+    private long[] stackShieldedBy = new long[4 * WORDS];
+    // healths of every unit, each stack owning a contiguous block with live units at the front
+    private double[] healths = new double[16];
+    private int numHealths = 0;
+    // stacks still on the board, in spawn order
+    private int[] active = new int[4];
+    private int numActive = 0;
+
+    // per frame scratch space
+    private int[] toRemove = new int[16];
+    private int numToRemove = 0;
+    // structures which would shorten a path if removed, with the edge it leads to, found again whenever structures
+    // are removed
+    private int[] cutTiles = new int[16];
+    private int[] cutEdges = new int[16];
+    private int numCuts = 0;
+    private boolean pathsChanged = true;
+
+    // recorded results, converted to the Simulator fields after running
+    private int[] pathTiles = new int[64];
+    private int pathLength = 0;
+    private int[] lostTiles = new int[16];
+    private int numLost = 0;
+
+    // distance fields of the current structures
+    private final Pathfinder pathfinder;
+
+    // GameState used to reference id of turrets for attack order
+    public ArraySimulator(UnitInformationContainer unitInfos, StructBoard startBoard, GameState move) {
+        // simulations from the same start board share its distance fields
+        pathfinder = startBoard.copyPathfinder();
+        category = unitInfos.unitCategory;
+        speed = unitInfos.speed;
+        startHealth = unitInfos.startHealth;
+        cost = unitInfos.cost1;
+        attackRangeSquared = unitInfos.attackRangeSquared;
+        shieldRangeSquared = unitInfos.shieldRangeSquared;
+        damageWalker = unitInfos.attackDamageWalker;
+        shieldPerUnit = unitInfos.shieldPerUnit;
+        shieldBonusPerY = unitInfos.shieldBonusPerY;
+
+        SortedMap<String, Integer> turretById = new TreeMap<>(Collections.reverseOrder());
+        int[] unknownTurrets = new int[TILES];
+        int numUnknown = 0;
+        Arrays.fill(structType, EMPTY);
+        Arrays.fill(coverHead, -1);
+        // Find existing turrets and supports, in the same order as ActionSimulator
+        long[] occupied = startBoard.occupied;
+        for (int tile = BitBoard.next(occupied, 0); tile >= 0; tile = BitBoard.next(occupied, tile + 1)) {
+            Structure struct = startBoard.getLocation(tile / SIZE, tile % SIZE);
+            structType[tile] = (byte) struct.type.ordinal();
+            structHealth[tile] = struct.getTargetHealth();
+            structUpgraded[tile] = struct.upgraded;
+            if (struct.type == UnitType.Turret) {
+                addCoverage(tile);
+                Unit unit = move.getWallAt(tile);
+                // turrets spawned this turn all share one id, so they are ordered with the unknown ones
+                if (unit != null && !unit.id.equals(Unit.SPAWNED_ID))
+                    turretById.put(unit.id, tile);
+                else
+                    unknownTurrets[numUnknown++] = tile;
+            } else if (struct.type == UnitType.Support) {
+                supports = append(supports, numSupports++, tile);
+            }
+        }
+
+        for (int tile : turretById.values())
+            turrets = append(turrets, numTurrets++, tile);
+        // turretById iterates in reverse, while ActionSimulator prepends each of them
+        for (int i = 0, j = numTurrets - 1; i < j; i++, j--) {
+            int temp = turrets[i];
+            turrets[i] = turrets[j];
+            turrets[j] = temp;
+        }
+        for (int i = 0; i < numUnknown; i++)
+            turrets = append(turrets, numTurrets++, unknownTurrets[i]);
+    }
+
+    @Override
+    public boolean spawnUnits(Coords coords, UnitType type, int quantity) {
+        if (quantity <= 0)
+            return false;
+
+        int t = type.ordinal();
+        boolean inArena = MapBounds.inArena(coords);
+        int tile = coords.x * SIZE + coords.y;
+        boolean empty = !inArena || structType[tile] == EMPTY;
+
+        if (empty && category[t][0] == GameState.WalkerUnitCategory) {
+            int targetEdge;
+            if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_BOTTOM_LEFT][coords.x][coords.y])
+                targetEdge = MapBounds.EDGE_TOP_RIGHT;
+            else if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_BOTTOM_RIGHT][coords.x][coords.y])
+                targetEdge = MapBounds.EDGE_TOP_LEFT;
+            else if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_TOP_LEFT][coords.x][coords.y])
+                targetEdge = MapBounds.EDGE_BOTTOM_RIGHT;
+            else if (MapBounds.IS_ON_EDGE[MapBounds.EDGE_TOP_RIGHT][coords.x][coords.y])
+                targetEdge = MapBounds.EDGE_BOTTOM_LEFT;
+            else
+                return false;
+
+            addStack(t, quantity, tile, targetEdge);
+            return true;
+        } else if (type == UnitType.Remove) {
+            if (inArena) {
+                structType[tile] = EMPTY;
+                pathfinder.setBlocked(coords.x, coords.y, false);
+            }
+            return true;
+        } else if (type == UnitType.Upgrade) {
+            if (empty || structUpgraded[tile])
+                return false;
+            int upgradedType = structType[tile];
+            structUpgraded[tile] = true;
+            structHealth[tile] -= startHealth[upgradedType][0] - startHealth[upgradedType][1];
+            return true;
+        } else if (category[t][0] == GameState.TowerUnitCategory && empty) {
+            // placements outside of the arena succeed without effect, as in StructBoard
+            if (!inArena)
+                return true;
+            structType[tile] = (byte) t;
+            structHealth[tile] = startHealth[t][0];
+            structUpgraded[tile] = false;
+            pathfinder.setBlocked(coords.x, coords.y, true);
+            if (t == TURRET) {
+                turrets = append(turrets, numTurrets++, tile);
+                addCoverage(tile);
+            }
+            else if (t == SUPPORT)
+                supports = append(supports, numSupports++, tile);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void addStack(int type, int quantity, int tile, int targetEdge) {
+        int s = numStacks++;
+        if (s == stackType.length) {
+            int length = 2 * s;
+            stackType = Arrays.copyOf(stackType, length);
+            stackTile = Arrays.copyOf(stackTile, length);
+            stackEdge = Arrays.copyOf(stackEdge, length);
+            stackPlayer = Arrays.copyOf(stackPlayer, length);
+            stackVertical = Arrays.copyOf(stackVertical, length);
+            stackSize = Arrays.copyOf(stackSize, length);
+            stackHealthStart = Arrays.copyOf(stackHealthStart, length);
+            stackShieldedBy = Arrays.copyOf(stackShieldedBy, length * WORDS);
+            active = Arrays.copyOf(active, length);
+        }
+        stackType[s] = (byte) type;
+        stackTile[s] = tile;
+        stackEdge[s] = targetEdge;
+        stackPlayer[s] = (targetEdge == MapBounds.EDGE_TOP_LEFT || targetEdge == MapBounds.EDGE_TOP_RIGHT) ? PLAYER_1
+                : PLAYER_2;
+        stackVertical[s] = false;
+        stackSize[s] = quantity;
+        stackHealthStart[s] = numHealths;
+        if (numHealths + quantity > healths.length)
+            healths = Arrays.copyOf(healths, Math.max(2 * healths.length, numHealths + quantity));
+        for (int i = 0; i < quantity; i++)
+            healths[numHealths++] = startHealth[type][0];
+        active[numActive++] = s;
+    }
+
+    @Override
+    public void run() {
+        for (int frame = 1; numActive > 0; frame++) {
+            numToRemove = 0;
+            if (attribution != null && pathsChanged) {
+                findPathCuts();
+                pathsChanged = false;
+            }
+            if (traffic != null && frame == 1)
+                for (int i = 0; i < numActive; i++)
+                    recordEntry(active[i]);
+
+            // Move mobile units
+            pathTiles = append(pathTiles, pathLength++, stackTile[active[0]]);
+            int kept = 0;
+            for (int i = 0; i < numActive; i++) {
+                int s = active[i];
+                double unitSpeed = speed[stackType[s]][0];
+                if ((int) (frame * unitSpeed) - (int) ((frame - 1) * unitSpeed) > 0) {
+                    if (attribution != null)
+                        attributeSteps(s);
+                    int next = pathfinder.nextStep(stackTile[s], stackEdge[s], stackVertical[s]);
+                    if (next < 0) {
+                        int tile = stackTile[s];
+                        if (MapBounds.IS_ON_EDGE[stackEdge[s]][tile / SIZE][tile % SIZE]) {
+                            if (stackPlayer[s] == PLAYER_1)
+                                p2LivesLost += stackSize[s];
+                            else
+                                p1LivesLost += stackSize[s];
+                        } else {
+                            selfDestruct(s, kept, i);
+                        }
+                        continue;
+                    } else {
+                        stackVertical[s] = next / SIZE == stackTile[s] / SIZE;
+                        stackTile[s] = next;
+                        if (traffic != null)
+                            recordEntry(s);
+                    }
+                }
+                if (traffic != null && stackPlayer[s] == PLAYER_2)
+                    traffic.frames[stackTile[s]]++;
+                active[kept++] = s;
+            }
+            numActive = kept;
+
+            // Add shielding
+            kept = 0;
+            for (int i = 0; i < numSupports; i++) {
+                int tile = supports[i];
+                if (structType[tile] != SUPPORT)
+                    continue;
+                supports[kept++] = tile;
+
+                int upgraded = structUpgraded[tile] ? 1 : 0;
+                int y = tile % SIZE;
+                int yValue = playerOf(y) == PLAYER_1 ? y : SIZE - 1 - y;
+                double shieldAmount = shieldPerUnit[SUPPORT][upgraded] + shieldBonusPerY[SUPPORT][upgraded] * yValue;
+                for (int j = 0; j < numActive; j++) {
+                    int s = active[j];
+                    int word = s * WORDS + (tile >>> 6);
+                    long bit = 1L << (tile & 63);
+                    if (squaredDistance(tile, stackTile[s]) <= shieldRangeSquared[SUPPORT][upgraded]
+                            && (stackShieldedBy[word] & bit) == 0) {
+                        stackShieldedBy[word] |= bit;
+                        takeSplashDamage(s, -shieldAmount);
+                        if (attribution != null)
+                            attribution.shieldGiven[tile] += shieldAmount * stackSize[s];
+                    }
+                }
+            }
+            numSupports = kept;
+
+            // Perform attacks, skipping turrets without a target in range
+            markTurretsInRange();
+            kept = 0;
+            for (int i = 0; i < numTurrets; i++) {
+                int tile = turrets[i];
+                if (structType[tile] != TURRET)
+                    continue;
+                turrets[kept++] = tile;
+                if (!BitBoard.get(inRange, tile))
+                    continue;
+
+                int upgraded = structUpgraded[tile] ? 1 : 0;
+                int target = getMobileTarget(tile, attackRangeSquared[TURRET][upgraded], playerOf(tile % SIZE));
+                if (target >= 0) {
+                    takeDamage(target, damageWalker[TURRET][upgraded]);
+                    if (attribution != null)
+                        attribution.damageDealt[tile] += damageWalker[TURRET][upgraded];
+                }
+            }
+            numTurrets = kept;
+
+            for (int i = 0; i < numActive; i++) {
+                int s = active[i];
+                int type = stackType[s];
+                double damage = damageWalker[type][0];
+                int rangeSquared = attackRangeSquared[type][0];
+                boolean canAttackStructures = type != INTERCEPTOR;
+                // once there is no mobile target, units of the stack keep attacking the same structure until it dies
+                int structTile = -1;
+                for (int u = 0; u < stackSize[s]; u++) {
+                    int target = structTile < 0 ? getMobileTarget(stackTile[s], rangeSquared, stackPlayer[s]) : -1;
+                    if (target >= 0) {
+                        takeDamage(target, damage);
+                    } else if (canAttackStructures) {
+                        if (structTile < 0 || structHealth[structTile] <= 0)
+                            structTile = getStructureTarget(stackTile[s], rangeSquared, stackPlayer[s]);
+                        if (structTile < 0)
+                            break;
+
+                        int targetType = structType[structTile];
+                        int upgraded = structUpgraded[structTile] ? 1 : 0;
+                        double coreValue = Math.min(damage, structHealth[structTile])
+                                / startHealth[targetType][upgraded] * cost[targetType][upgraded];
+                        if (stackPlayer[s] == PLAYER_1)
+                            p2CoresLost += coreValue;
+                        else
+                            p1CoresLost += coreValue;
+
+                        if (structHealth[structTile] <= damage)
+                            toRemove = append(toRemove, numToRemove++, structTile);
+                        structHealth[structTile] -= damage;
+                        if (attribution != null)
+                            attribution.damageTaken[structTile] += damage;
+                    } else {
+                        // if no target, other units on same tile also have no target
+                        break;
+                    }
+                }
+            }
+
+            // Check death
+            for (int i = 0; i < numToRemove; i++) {
+                int tile = toRemove[i];
+                structType[tile] = EMPTY;
+                pathfinder.setBlocked(tile / SIZE, tile % SIZE, false);
+                if (playerOf(tile % SIZE) == PLAYER_1)
+                    lostTiles = append(lostTiles, numLost++, tile);
+                pathsChanged = true;
+            }
+            kept = 0;
+            for (int i = 0; i < numActive; i++) {
+                int s = active[i];
+                removeDead(s);
+                if (stackSize[s] > 0)
+                    active[kept++] = s;
+            }
+            numActive = kept;
+        }
+
+        for (int i = 0; i < pathLength; i++)
+            unitPath.add(new Coords(pathTiles[i] / SIZE, pathTiles[i] % SIZE));
+        for (int i = 0; i < numLost; i++)
+            p1LostStructCoords.add(new Coords(lostTiles[i] / SIZE, lostTiles[i] % SIZE));
+    }
+
+    // Stacks still listed while moving are active[0, kept) and active[current, numActive)
+    private void selfDestruct(int s, int kept, int current) {
+        double radius = 1.5;
+        double damage = startHealth[stackType[s]][0] * stackSize[s];
+        int player = stackPlayer[s];
+        int tile = stackTile[s];
+        int cx = tile / SIZE;
+        int cy = tile % SIZE;
+
+        // check board area for enemy structures
+        for (int x = cx - 1; x <= cx + 1; x++) {
+            for (int y = cy - 1; y <= cy + 1; y++) {
+                if (x < 0 || y < 0 || x >= SIZE || y >= SIZE || !MapBounds.ARENA[x][y])
+                    continue;
+                int here = x * SIZE + y;
+                if (DISTANCE[squaredDistance(tile, here)] <= radius && player != playerOf(y)
+                        && structType[here] != EMPTY) {
+                    structHealth[here] -= damage;
+                    if (attribution != null)
+                        attribution.damageTaken[here] += damage;
+                    if (structHealth[here] <= 0)
+                        toRemove = append(toRemove, numToRemove++, here);
+                }
+            }
+        }
+        // check for enemy mobile units in range
+        for (int i = 0; i < numActive; i++) {
+            if (i == kept)
+                i = current;
+            int other = active[i];
+            if (DISTANCE[squaredDistance(tile, stackTile[other])] <= radius && player != stackPlayer[other])
+                takeSplashDamage(other, damage);
+        }
+        // kill self-destructing units
+        int start = stackHealthStart[s];
+        for (int i = 0; i < stackSize[s]; i++)
+            healths[start + i] = 0.0;
+    }
+
+    // Mark the structures next to a pocket some stack is in, which would change its path if removed, and find those
+    // which would shorten a path to an edge some stack is heading for, to be checked as stacks move
+    private void findPathCuts() {
+        int edges = 0;
+        long[] pockets = null;
+        for (int i = 0; i < numActive; i++) {
+            int s = active[i];
+            edges |= 1 << stackEdge[s];
+            if (pathfinder.inPocket(stackTile[s], stackEdge[s])) {
+                long[] pocket = pathfinder.connected(stackTile[s]);
+                if (pockets == null)
+                    pockets = pocket;
+                else
+                    for (int w = 0; w < WORDS; w++)
+                        pockets[w] |= pocket[w];
+            }
+        }
+        numCuts = 0;
+        for (int tile = 0; tile < TILES; tile++) {
+            if (structType[tile] == EMPTY || attribution.onPathCut[tile])
+                continue;
+            if (pockets != null && nextTo(pockets, tile)) {
+                attribution.onPathCut[tile] = true;
+                continue;
+            }
+            for (int edge = 0; edge < 4; edge++) {
+                if ((edges & 1 << edge) != 0 && pathfinder.wouldShorten(tile, edge)) {
+                    cutTiles = append(cutTiles, numCuts, tile);
+                    cutEdges = append(cutEdges, numCuts++, edge);
+                }
+            }
+        }
+    }
+
+    // Mark the structures whose removal could change the next step of a stack about to move
+    private void attributeSteps(int s) {
+        int tile = stackTile[s];
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        for (int n = 0; n < 4; n++) {
+            int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                continue;
+            int here = nx * SIZE + ny;
+            if (structType[here] != EMPTY && pathfinder.wouldBeStep(tile, here, stackEdge[s]))
+                attribution.onPathCut[here] = true;
+        }
+        for (int i = 0; i < numCuts; i++)
+            if (cutEdges[i] == stackEdge[s] && pathfinder.couldShortenNear(tile, cutTiles[i], stackEdge[s]))
+                attribution.onPathCut[cutTiles[i]] = true;
+    }
+
+    // Add the health of a stack of player 2 to the tile it entered
+    private void recordEntry(int s) {
+        if (stackPlayer[s] != PLAYER_2)
+            return;
+        int start = stackHealthStart[s];
+        for (int i = 0; i < stackSize[s]; i++)
+            traffic.health[stackTile[s]] += healths[start + i];
+    }
+
+    // Register a new turret with every tile its upgraded range covers
+    private void addCoverage(int tile) {
+        int rangeSquared = Math.max(attackRangeSquared[TURRET][0], attackRangeSquared[TURRET][1]);
+        int window = (int) Math.sqrt(rangeSquared);
+        int cx = tile / SIZE;
+        int cy = tile % SIZE;
+        for (int x = Math.max(0, cx - window); x <= cx + window && x < SIZE; x++) {
+            for (int y = Math.max(0, cy - window); y <= cy + window && y < SIZE; y++) {
+                if ((x - cx) * (x - cx) + (y - cy) * (y - cy) > rangeSquared)
+                    continue;
+                int here = x * SIZE + y;
+                coverNext = append(coverNext, numCover, coverHead[here]);
+                coverTurret = append(coverTurret, numCover, tile);
+                coverHead[here] = numCover++;
+            }
+        }
+    }
+
+    // Mark the live turrets covering the tile of an enemy stack with health remaining
+    private void markTurretsInRange() {
+        Arrays.fill(inRange, 0);
+        for (int i = 0; i < numActive; i++) {
+            int s = active[i];
+            if (getTargetHealth(s) <= 0)
+                continue;
+            for (int c = coverHead[stackTile[s]]; c >= 0; c = coverNext[c]) {
+                int tile = coverTurret[c];
+                int upgraded = structUpgraded[tile] ? 1 : 0;
+                if (structType[tile] == TURRET && playerOf(tile % SIZE) != stackPlayer[s]
+                        && squaredDistance(tile, stackTile[s]) <= attackRangeSquared[TURRET][upgraded])
+                    BitBoard.set(inRange, tile);
+            }
+        }
+    }
+
+    // Nearest enemy stack with health remaining, then lowest health, then first spawned. -1 for none.
+    private int getMobileTarget(int tile, int rangeSquared, int player) {
+        int target = -1;
+        int targetDistTo = 0;
+        double targetHealth = 0;
+
+        for (int i = 0; i < numActive; i++) {
+            int s = active[i];
+            double health = getTargetHealth(s);
+            if (stackPlayer[s] != player && health > 0) {
+                int dist = squaredDistance(tile, stackTile[s]);
+                if (dist <= rangeSquared && (target < 0 || targetDistTo > dist
+                        || (targetDistTo == dist && targetHealth > health))) {
+                    target = s;
+                    targetDistTo = dist;
+                    targetHealth = health;
+                }
+            }
+        }
+        return target;
+    }
+
+    // Structure target chosen by ActionSimulator.getAnyTarget when there is no mobile target: nearest, then lowest
+    // health, then first in target order. -1 for none.
+    private int getStructureTarget(int tile, int rangeSquared, int player) {
+        int[] dxs = TargetOrder.DX[player - PLAYER_1];
+        int[] dys = TargetOrder.DY[player - PLAYER_1];
+        int[] squaredDistances = TargetOrder.SQUARED_DISTANCE[player - PLAYER_1];
+        int cx = tile / SIZE;
+        int cy = tile % SIZE;
+
+        int target = -1;
+        double targetHealth = 0;
+        for (int i = 0; i < squaredDistances.length && squaredDistances[i] <= rangeSquared; i++) {
+            // stop after the first ring with a target
+            if (target >= 0 && squaredDistances[i] != squaredDistances[i - 1])
+                break;
+            int x = cx + dxs[i];
+            int y = cy + dys[i];
+            if (x < 0 || y < 0 || x >= SIZE || y >= SIZE || playerOf(y) == player)
+                continue;
+            int here = x * SIZE + y;
+            if (structType[here] == EMPTY)
+                continue;
+            double health = structHealth[here];
+            if (health > 0 && (target < 0 || health < targetHealth)) {
+                target = here;
+                targetHealth = health;
+            }
+        }
+        return target;
+    }
+
+    private double getTargetHealth(int s) {
+        int start = stackHealthStart[s];
+        for (int i = stackSize[s] - 1; i >= 1; i--)
+            if (healths[start + i] > 0)
+                return healths[start + i];
+        return healths[start];
+    }
+
+    private void takeDamage(int s, double damage) {
+        int start = stackHealthStart[s];
+        for (int i = stackSize[s] - 1; i >= 0; i--)
+            if (healths[start + i] > 0) {
+                healths[start + i] = healths[start + i] - damage;
+                return;
+            }
+    }
+
+    private void takeSplashDamage(int s, double damage) {
+        int start = stackHealthStart[s];
+        for (int i = 0; i < stackSize[s]; i++)
+            healths[start + i] = healths[start + i] - damage;
+    }
+
+    private void removeDead(int s) {
+        int start = stackHealthStart[s];
+        while (stackSize[s] > 0 && healths[start + stackSize[s] - 1] <= 0)
+            stackSize[s]--;
+    }
+
+    private static boolean nextTo(long[] tiles, int tile) {
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        return (x + 1 < SIZE && BitBoard.get(tiles, tile + SIZE)) || (x > 0 && BitBoard.get(tiles, tile - SIZE))
+                || (y + 1 < SIZE && BitBoard.get(tiles, tile + 1)) || (y > 0 && BitBoard.get(tiles, tile - 1));
+    }
+
+    private static int squaredDistance(int a, int b) {
+        int dx = a / SIZE - b / SIZE;
+        int dy = a % SIZE - b % SIZE;
+        return dx * dx + dy * dy;
+    }
+
+    private static int playerOf(int y) {
+        return y >= SIZE / 2 ? PLAYER_2 : PLAYER_1;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length)
+            array = Arrays.copyOf(array, 2 * index);
+        array[index] = value;
+        return array;
+    }
+}
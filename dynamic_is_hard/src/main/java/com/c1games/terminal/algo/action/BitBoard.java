@@ -0,0 +1,146 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.map.MapBounds;
+
+/**
+ * Sets of tiles stored as bits of WORDS longs, with tile id x * BOARD_SIZE + y, so that iterating over set bits visits
+ * tiles in the same order as nested loops over x and then y. Moving a whole set one tile in any direction is a shift
+ * and mask of every word, which lets flood fills advance a full breadth first search layer at a time.
+ */
+public class BitBoard {
+
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+    public static final int TILES = SIZE * SIZE;
+    public static final int WORDS = (TILES + 63) / 64;
+
+    // must not be modified
+    static final long[] ARENA = new long[WORDS];
+    static final long[][] EDGES = new long[4][WORDS];
+    private static final long[] NOT_BOTTOM_ROW = new long[WORDS];
+    private static final long[] NOT_TOP_ROW = new long[WORDS];
+
+    static {
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                int tile = x * SIZE + y;
+                if (MapBounds.ARENA[x][y])
+                    set(ARENA, tile);
+                for (int edge = 0; edge < 4; edge++)
+                    if (MapBounds.IS_ON_EDGE[edge][x][y])
+                        set(EDGES[edge], tile);
+                if (y != 0)
+                    set(NOT_BOTTOM_ROW, tile);
+                if (y != SIZE - 1)
+                    set(NOT_TOP_ROW, tile);
+            }
+        }
+    }
+
+    public static boolean get(long[] bits, int tile) {
+        return (bits[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    public static void set(long[] bits, int tile) {
+        bits[tile >>> 6] |= 1L << tile;
+    }
+
+    public static void clear(long[] bits, int tile) {
+        bits[tile >>> 6] &= ~(1L << tile);
+    }
+
+    public static boolean isEmpty(long[] bits) {
+        for (long word : bits)
+            if (word != 0)
+                return false;
+        return true;
+    }
+
+    public static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    // First set tile at or after from, or -1 if there is none
+    public static int next(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= WORDS)
+            return -1;
+        long remaining = bits[word] & (-1L << from);
+        while (remaining == 0) {
+            if (++word == WORDS)
+                return -1;
+            remaining = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    // Sets result to the tiles of bits and their four neighbors, limited to mask
+    public static void dilate(long[] bits, long[] mask, long[] result) {
+        long carryUp = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = bits[i];
+            long next = i + 1 < WORDS ? bits[i + 1] : 0;
+            long prev = i > 0 ? bits[i - 1] : 0;
+            // one column over is a shift by SIZE, one row over is a shift by 1 that cannot cross columns
+            long right = (word << SIZE) | (prev >>> (64 - SIZE));
+            long left = (word >>> SIZE) | (next << (64 - SIZE));
+            long up = ((word << 1) | carryUp) & NOT_BOTTOM_ROW[i];
+            long down = ((word >>> 1) | (next << 63)) & NOT_TOP_ROW[i];
+            carryUp = word >>> 63;
+            result[i] = (word | right | left | up | down) & mask[i];
+        }
+    }
+
+    // Tiles of open connected to the seeds through open tiles
+    public static long[] reachable(long[] seeds, long[] open) {
+        long[] reached = new long[WORDS];
+        long[] next = new long[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            reached[i] = seeds[i] & open[i];
+        while (true) {
+            dilate(reached, open, next);
+            if (equals(reached, next))
+                return reached;
+            long[] temp = reached;
+            reached = next;
+            next = temp;
+        }
+    }
+
+    // Sets the distance from the seeds of each reachable tile of open, one breadth first layer at a time
+    public static void layers(long[] seeds, long[] open, int[] field) {
+        long[] visited = new long[WORDS];
+        long[] frontier = new long[WORDS];
+        long[] next = new long[WORDS];
+        for (int i = 0; i < WORDS; i++)
+            frontier[i] = visited[i] = seeds[i] & open[i];
+        for (int dist = 0; !isEmpty(frontier); dist++) {
+            for (int tile = next(frontier, 0); tile >= 0; tile = next(frontier, tile + 1))
+                field[tile] = dist;
+            dilate(frontier, open, next);
+            for (int i = 0; i < WORDS; i++) {
+                next[i] &= ~visited[i];
+                visited[i] |= next[i];
+            }
+            long[] temp = frontier;
+            frontier = next;
+            next = temp;
+        }
+    }
+
+    public static boolean equals(long[] a, long[] b) {
+        for (int i = 0; i < WORDS; i++)
+            if (a[i] != b[i])
+                return false;
+        return true;
+    }
+
+    public static int hashCode(long[] bits) {
+        long hash = 0;
+        for (long word : bits)
+            hash = hash * 31 + word;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,61 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.Arrays;
+
+/**
+ * An action phase simulation whose result is looked up in a cache before running it, and stored after. Spawns are
+ * only recorded until then, and the simulator which runs the action phase is created only when the result is not
+ * cached. It is not a Simulator, since whether each spawn succeeds is not known until the simulation runs.
+ */
+class CachedSimulation {
+
+    private final SimulationCache cache;
+    private final UnitInformationContainer unitInfos;
+    private final StructBoard startBoard;
+    // structures of the start board when the simulation was created, for the cache key
+    private final StructBoard snapshot;
+    private final GameState move;
+    private final int moveVersion;
+    private int[] spawns = new int[16];
+    private int spawnsLength = 0;
+
+    CachedSimulation(SimulationCache cache, UnitInformationContainer unitInfos, StructBoard startBoard,
+            GameState move) {
+        this.cache = cache;
+        this.unitInfos = unitInfos;
+        this.startBoard = startBoard;
+        this.snapshot = startBoard.snapshot();
+        this.move = move;
+        this.moveVersion = move.buildStack.size();
+    }
+
+    // Record units to spawn, in order, when the simulation runs
+    void addSpawn(Coords coords, UnitType type, int quantity) {
+        if (spawnsLength + 4 > spawns.length)
+            spawns = Arrays.copyOf(spawns, spawns.length * 2);
+        spawns[spawnsLength++] = coords.x;
+        spawns[spawnsLength++] = coords.y;
+        spawns[spawnsLength++] = type.ordinal();
+        spawns[spawnsLength++] = quantity;
+    }
+
+    // The cached result, or the result of simulating the action phase, which is then cached
+    SimulationResult run() {
+        SimulationCache.Key key = new SimulationCache.Key(snapshot, move, moveVersion,
+                Arrays.copyOf(spawns, spawnsLength));
+        SimulationResult result = cache.get(key);
+        if (result == null) {
+            Simulator sim = new ArraySimulator(unitInfos, startBoard, move);
+            for (int i = 0; i < spawnsLength; i += 4)
+                sim.spawnUnits(new Coords(spawns[i], spawns[i + 1]), UnitType.values()[spawns[i + 2]], spawns[i + 3]);
+            sim.run();
+            result = new SimulationResult(sim);
+            cache.put(key, result);
+        }
+        return result;
+    }
+}
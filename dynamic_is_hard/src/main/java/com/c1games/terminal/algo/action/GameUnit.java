@@ -4,9 +4,5 @@ public interface GameUnit {
 
     double getTargetHealth();
 
-    void takeDamage(double damage);
-
-    void takeSplashDamage(double damage);
-
     boolean isStructure();
 }
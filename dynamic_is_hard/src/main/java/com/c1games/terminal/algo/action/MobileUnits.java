@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.Deque;
 
 public class MobileUnits implements GameUnit {
 
@@ -19,7 +18,6 @@ public class MobileUnits implements GameUnit {
     public final Set<Coords> shieldsFrom;
     public Coords coords;
     public final int targetEdge;
-    public Deque<Coords> path;
     public Pathfinder.Direction lastDirection;
 
     public MobileUnits(UnitType type, int quantity, double startHealth, Coords coords, int targetEdge) {
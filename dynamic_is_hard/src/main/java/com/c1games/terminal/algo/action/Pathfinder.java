@@ -4,141 +4,345 @@ import com.c1games.terminal.algo.Coords;
 import com.c1games.terminal.algo.map.MapBounds;
 
 import java.util.Deque;
-import java.util.PriorityQueue;
 import java.util.LinkedList;
 
+/**
+ * Distance fields towards each target edge for one board, shared by every mobile unit pathing on that board. A field
+ * is computed with one flood fill from the edge the first time it is needed, and tiles of pockets which cannot reach
+ * the edge are filled from the deepest tile of their pocket. Units then read their next step from the field, breaking
+ * ties between equally short steps by direction idealness.
+ * <p>
+ * Fields and pockets are found with bit-parallel flood fills over the open tiles. When a structure is destroyed, the
+ * edge fields are repaired by propagating the shorter distances through the opened tile, which gives the same fields
+ * as computing them again from scratch.
+ */
 public class Pathfinder {
 
     public enum Direction {
         VERTICAL, HORIZONTAL
     }
 
-    private class Node implements Comparable<Node> {
-        public final Coords coords;
-        public final int dist;
-        public final int direct;
-        public final int index;
-        public final Direction approach;
-        public final Node parent;
-
-        public Node(Coords coords, int minDist, int directionIdealness, int index, Direction approachDirection,
-                Node parent) {
-            this.coords = coords;
-            this.dist = minDist;
-            this.direct = directionIdealness;
-            this.index = index;
-            this.approach = approachDirection;
-            this.parent = parent;
-        }
-
-        // earlier in ordering means lower distance, then higher directionIdealness,
-        // then higher index
-        public int compareTo(Node other) {
-            int cmpDist = Integer.compare(this.dist, other.dist);
-            int cmpDirect = Integer.compare(other.direct, this.direct);
-            int cmpIndex = Integer.compare(other.index, this.index);
-            return (cmpDist == 0) ? ((cmpDirect == 0) ? cmpIndex : cmpDirect) : cmpDist;
-        }
-    }
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+    private static final int TILES = SIZE * SIZE;
+    private static final int BLOCKED = -1;
+    private static final int UNKNOWN = Integer.MAX_VALUE;
 
-    StructBoard board;
+    // tiles in the arena without a structure
+    private final long[] open;
+    // distance to target edge by edge and tile, null until needed, UNKNOWN for tiles which cannot reach the edge
+    private int[][] fields = new int[4][];
+    // distance to deepest tile of pocket by edge and tile, null until needed, UNKNOWN until the pocket is filled
+    private int[][] pockets = new int[4][];
+    // field arrays are shared with copies until either changes them, while fields computed later and pockets are only
+    // seen by the pathfinder that computed them, so copies can be used from other threads
+    private boolean ownsFields = true;
 
     public Pathfinder(StructBoard board) {
-        this.board = board;
+        open = new long[BitBoard.WORDS];
+        for (int i = 0; i < BitBoard.WORDS; i++)
+            open[i] = BitBoard.ARENA[i] & ~board.occupied[i];
     }
 
-    public Deque<Coords> getPath(Coords start, int targetEdge, Direction approachDirection) {
-        int[][] distances = new int[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
-            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
-                Coords coords = new Coords(x, y);
-                boolean open = MapBounds.inArena(coords) && board.getLocation(coords) == null;
-                distances[x][y] = open ? Integer.MAX_VALUE : -1;
+    public Pathfinder(Pathfinder toCopy) {
+        open = toCopy.open.clone();
+        fields = toCopy.fields.clone();
+        ownsFields = false;
+        toCopy.ownsFields = false;
+    }
+
+    // Update whether a tile in the arena is blocked by a structure
+    public void setBlocked(int x, int y, boolean isBlocked) {
+        int tile = x * SIZE + y;
+        if (BitBoard.get(open, tile) == isBlocked) {
+            if (isBlocked)
+                BitBoard.clear(open, tile);
+            else
+                BitBoard.set(open, tile);
+            pockets = new int[4][];
+            if (isBlocked) {
+                fields = new int[4][];
+                ownsFields = true;
+            } else {
+                open(tile);
             }
         }
-        if (distances[start.x][start.y] == -1)
-            return null;
+    }
+
+    // Repair edge fields after a tile is opened, where distances can only decrease
+    private void open(int tile) {
+        if (!ownsFields) {
+            int[][] copies = new int[4][];
+            for (int edge = 0; edge < 4; edge++)
+                if (fields[edge] != null)
+                    copies[edge] = fields[edge].clone();
+            fields = copies;
+            ownsFields = true;
+        }
+
+        int[] queue = null;
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        for (int edge = 0; edge < 4; edge++) {
+            int[] field = fields[edge];
+            if (field == null)
+                continue;
 
-        int index = 0;
-        PriorityQueue<Node> toCheck = new PriorityQueue<>();
-        Node startNode = new Node(start, manhattan(start, targetEdge), 0, index++, approachDirection, null);
-        toCheck.add(startNode);
-        distances[start.x][start.y] = 0;
-
-        Node onEdge = null;
-        Node deepest = startNode;
-        int yBack = (targetEdge == MapBounds.EDGE_TOP_LEFT || targetEdge == MapBounds.EDGE_TOP_RIGHT) ? 0
-                : MapBounds.BOARD_SIZE - 1;
-        int bestDepth = Math.abs(yBack - start.y);
-
-        while (!toCheck.isEmpty() && onEdge == null) {
-            Node popped = toCheck.poll();
-            int dist = getCoords(popped.coords, distances);
-
-            for (Coords coords : popped.coords.neighbors()) {
-                int curDist = getCoords(coords, distances);
-                if (curDist > dist + 1) { // curDist != -1
-                    distances[coords.x][coords.y] = dist + 1;
-                    int manhat = manhattan(coords, targetEdge);
-                    Direction approach = (coords.x == popped.coords.x) ? Direction.VERTICAL : Direction.HORIZONTAL;
-                    int directionIdealness = 0;
-                    if (approach != popped.approach)
-                        directionIdealness += 2;
-                    if (manhat < manhattan(popped.coords, targetEdge))
-                        directionIdealness += 1;
-
-                    // Keep track of nodes reached on target edge
-                    Node node = new Node(coords, dist + 1 + manhat, directionIdealness, index++, approach, popped);
-                    if (manhat == 0)
-                        onEdge = (onEdge == null || node.compareTo(onEdge) < 0) ? node : onEdge;
-
-                    // Keep track of best self-destruct candidate
-                    int depth = Math.abs(yBack - coords.y);
-                    if (depth > bestDepth || (depth == bestDepth && manhat < manhattan(deepest.coords, targetEdge))) {
-                        deepest = node;
-                        bestDepth = depth;
-                    }
-
-                    toCheck.add(node);
+            int dist = UNKNOWN;
+            if (MapBounds.IS_ON_EDGE[edge][x][y]) {
+                dist = 0;
+            } else {
+                for (int n = 0; n < 4; n++) {
+                    int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+                    int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+                    if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                        continue;
+                    int neighborDist = field[nx * SIZE + ny];
+                    if (neighborDist != BLOCKED && neighborDist != UNKNOWN && neighborDist + 1 < dist)
+                        dist = neighborDist + 1;
                 }
             }
+            field[tile] = dist;
+
+            if (dist != UNKNOWN) {
+                if (queue == null)
+                    queue = new int[TILES];
+                queue[0] = tile;
+                flood(field, queue, 0, 1);
+            }
+        }
+    }
+
+    // Compute the field towards every edge so that later copies share them
+    void computeFields() {
+        for (int edge = 0; edge < 4; edge++)
+            getField(edge);
+    }
+
+    // Next tile for a unit at the given tile, or -1 if it has reached the end of its path
+    public int nextStep(int tile, int targetEdge, boolean lastVertical) {
+        if (!BitBoard.get(open, tile))
+            return -1;
+        int[] field = getField(targetEdge);
+        if (field[tile] == UNKNOWN) {
+            field = getPockets(targetEdge);
+            if (field[tile] == UNKNOWN)
+                fillPocket(field, tile, targetEdge);
+        }
+        int dist = field[tile];
+        if (dist == 0)
+            return -1;
+
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        int manhat = manhattan(x, y, targetEdge);
+        int best = -1;
+        int bestIdealness = -1;
+        for (int n = 0; n < 4; n++) {
+            int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE || field[nx * SIZE + ny] != dist - 1)
+                continue;
+            boolean vertical = nx == x;
+            int directionIdealness = 0;
+            if (vertical != lastVertical)
+                directionIdealness += 2;
+            if (manhattan(nx, ny, targetEdge) < manhat)
+                directionIdealness += 1;
+            // later neighbors win ties
+            if (directionIdealness >= bestIdealness) {
+                best = nx * SIZE + ny;
+                bestIdealness = directionIdealness;
+            }
         }
+        return best;
+    }
 
-        // Find path to self-destruct or reach edge
-        if (onEdge == null)
-            return backtracePath(deepest);
-        else
-            return backtracePath(onEdge);
+    // Nullable when the unit has reached the end of its path
+    public Coords nextStep(Coords coords, int targetEdge, Direction lastDirection) {
+        int next = nextStep(coords.x * SIZE + coords.y, targetEdge, lastDirection == Direction.VERTICAL);
+        return next < 0 ? null : new Coords(next / SIZE, next % SIZE);
     }
 
-    private Deque<Coords> backtracePath(Node node) {
+    // Path to the target edge or self-destruct location, not including the start. Null if start is blocked
+    public Deque<Coords> getPath(Coords start, int targetEdge, Direction approachDirection) {
+        if (!MapBounds.inArena(start) || !BitBoard.get(open, start.x * SIZE + start.y))
+            return null;
         Deque<Coords> path = new LinkedList<>();
-        while (node != null) {
-            path.addFirst(node.coords);
-            node = node.parent;
+        int tile = start.x * SIZE + start.y;
+        boolean vertical = approachDirection == Direction.VERTICAL;
+        for (int next = nextStep(tile, targetEdge, vertical); next >= 0; next = nextStep(tile, targetEdge, vertical)) {
+            vertical = next / SIZE == tile / SIZE;
+            tile = next;
+            path.add(new Coords(tile / SIZE, tile % SIZE));
         }
-        // do not including starting location in list
-        path.removeFirst();
         return path;
     }
 
-    private int getCoords(Coords coords, int[][] array) {
-        if (!MapBounds.inArena(coords))
-            return -1;
-        else
-            return array[coords.x][coords.y];
+    // Whether opening a blocked tile would shorten the path to the target edge from any other tile
+    boolean wouldShorten(int tile, int targetEdge) {
+        int[] field = getField(targetEdge);
+        int dist = openedDistance(field, tile, targetEdge);
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        for (int n = 0; n < 4; n++) {
+            int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                continue;
+            int neighborDist = field[nx * SIZE + ny];
+            if (neighborDist != BLOCKED && neighborDist != UNKNOWN && neighborDist - 1 > dist)
+                return true;
+        }
+        return false;
+    }
+
+    // Open tiles connected to an open tile, which for a unit in a pocket is the pocket
+    long[] connected(int tile) {
+        long[] seed = new long[BitBoard.WORDS];
+        BitBoard.set(seed, tile);
+        return BitBoard.reachable(seed, open);
+    }
+
+    // Whether a unit at an open tile cannot reach the target edge
+    boolean inPocket(int tile, int targetEdge) {
+        return getField(targetEdge)[tile] == UNKNOWN;
+    }
+
+    // Whether opening a blocked tile could shorten the path to the target edge from a tile or its neighbors, which
+    // decide the next step of a unit there. A path through the opened tile is at least as long as the manhattan
+    // distance to it. False for a unit in a pocket, whose path only changes by opening a tile next to the pocket
+    boolean couldShortenNear(int tile, int opened, int targetEdge) {
+        int[] field = getField(targetEdge);
+        if (field[tile] == UNKNOWN)
+            return false;
+        int dist = openedDistance(field, opened, targetEdge);
+        if (dist == UNKNOWN)
+            return false;
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        int ox = opened / SIZE;
+        int oy = opened % SIZE;
+        if (dist + Math.abs(x - ox) + Math.abs(y - oy) < field[tile])
+            return true;
+        for (int n = 0; n < 4; n++) {
+            int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                continue;
+            int neighborDist = field[nx * SIZE + ny];
+            if (neighborDist != BLOCKED && neighborDist != UNKNOWN
+                    && dist + Math.abs(nx - ox) + Math.abs(ny - oy) < neighborDist)
+                return true;
+        }
+        return false;
+    }
+
+    // Whether a unit at a tile could step onto a blocked neighbor if it were opened. False for a unit in a pocket, as
+    // for couldShortenNear
+    boolean wouldBeStep(int tile, int neighbor, int targetEdge) {
+        int[] field = getField(targetEdge);
+        return field[tile] != UNKNOWN && openedDistance(field, neighbor, targetEdge) == field[tile] - 1;
+    }
+
+    // Distance to the target edge a blocked tile would have if it were opened and no other tile changed
+    private static int openedDistance(int[] field, int tile, int targetEdge) {
+        int x = tile / SIZE;
+        int y = tile % SIZE;
+        if (MapBounds.IS_ON_EDGE[targetEdge][x][y])
+            return 0;
+        int dist = UNKNOWN;
+        for (int n = 0; n < 4; n++) {
+            int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                continue;
+            int neighborDist = field[nx * SIZE + ny];
+            if (neighborDist != BLOCKED && neighborDist != UNKNOWN && neighborDist + 1 < dist)
+                dist = neighborDist + 1;
+        }
+        return dist;
+    }
+
+    private int[] getField(int targetEdge) {
+        int[] field = fields[targetEdge];
+        if (field == null) {
+            field = emptyField();
+            BitBoard.layers(BitBoard.EDGES[targetEdge], open, field);
+            fields[targetEdge] = field;
+        }
+        return field;
+    }
+
+    private int[] getPockets(int targetEdge) {
+        int[] pocket = pockets[targetEdge];
+        if (pocket == null) {
+            pocket = emptyField();
+            pockets[targetEdge] = pocket;
+        }
+        return pocket;
+    }
+
+    // BLOCKED for tiles which are not open, otherwise UNKNOWN
+    private int[] emptyField() {
+        int[] field = new int[TILES];
+        for (int tile = 0; tile < TILES; tile++)
+            field[tile] = BitBoard.get(open, tile) ? UNKNOWN : BLOCKED;
+        return field;
+    }
+
+    // Fill the pocket containing start, which cannot reach the target edge, with distances to its deepest tile
+    private void fillPocket(int[] field, int start, int targetEdge) {
+        long[] seed = new long[BitBoard.WORDS];
+        BitBoard.set(seed, start);
+        long[] pocket = BitBoard.reachable(seed, open);
+
+        // Deepest tile, then closest to the edge, is unique within the pocket
+        int yBack = (targetEdge == MapBounds.EDGE_TOP_LEFT || targetEdge == MapBounds.EDGE_TOP_RIGHT) ? 0 : SIZE - 1;
+        int deepest = start;
+        for (int tile = BitBoard.next(pocket, 0); tile >= 0; tile = BitBoard.next(pocket, tile + 1)) {
+            int depth = Math.abs(yBack - tile % SIZE);
+            int bestDepth = Math.abs(yBack - deepest % SIZE);
+            if (depth > bestDepth || (depth == bestDepth && manhattan(tile / SIZE, tile % SIZE, targetEdge) < manhattan(
+                    deepest / SIZE, deepest % SIZE, targetEdge)))
+                deepest = tile;
+        }
+
+        BitBoard.clear(seed, start);
+        BitBoard.set(seed, deepest);
+        BitBoard.layers(seed, pocket, field);
+    }
+
+    // Breadth first search from the queued tiles, lowering distances of open tiles which are farther
+    private static void flood(int[] field, int[] queue, int head, int tail) {
+        while (head < tail) {
+            int tile = queue[head++];
+            int x = tile / SIZE;
+            int y = tile % SIZE;
+            int dist = field[tile] + 1;
+            for (int n = 0; n < 4; n++) {
+                int nx = x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+                int ny = y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+                if (nx < 0 || ny < 0 || nx >= SIZE || ny >= SIZE)
+                    continue;
+                int neighbor = nx * SIZE + ny;
+                if (field[neighbor] > dist) {
+                    field[neighbor] = dist;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
     }
 
-    private int manhattan(Coords coords, int targetEdge) {
+    private static int manhattan(int x, int y, int targetEdge) {
         if (targetEdge == MapBounds.EDGE_BOTTOM_LEFT)
-            return coords.x + coords.y - (MapBounds.BOARD_SIZE / 2 - 1);
+            return x + y - (SIZE / 2 - 1);
         if (targetEdge == MapBounds.EDGE_BOTTOM_RIGHT)
-            return MapBounds.BOARD_SIZE / 2 - (coords.x - coords.y);
+            return SIZE / 2 - (x - y);
         if (targetEdge == MapBounds.EDGE_TOP_LEFT)
-            return MapBounds.BOARD_SIZE / 2 - (coords.y - coords.x);
+            return SIZE / 2 - (y - x);
         if (targetEdge == MapBounds.EDGE_TOP_RIGHT)
-            return 3 * MapBounds.BOARD_SIZE / 2 - 1 - (coords.x + coords.y);
+            return 3 * SIZE / 2 - 1 - (x + y);
         // exception
         return 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Independent action phase simulations which are run together on a work stealing pool. Each scenario is a start board
+ * and the units spawned on it, and results are returned in the order the scenarios were added, so they are the same as
+ * running them one after another.
+ * <p>
+ * Boards must not be changed while the batch runs, though any number of scenarios may share one board. Each is shared
+ * when added, so that the simulations copying it from several threads only read it.
+ * <p>
+ * A batch can be run with a stop condition, such as a turn deadline. Scenarios not yet started once it is true are
+ * skipped and have a null result, while those already started are finished.
+ */
+public class SimulationBatch {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final UnitInformationContainer unitInfos;
+    private final GameState move;
+    // nullable
+    private final SimulationCache cache;
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    public SimulationBatch(UnitInformationContainer unitInfos, GameState move, SimulationCache cache) {
+        this.unitInfos = unitInfos;
+        this.move = move;
+        this.cache = cache;
+    }
+
+    // Add a simulation starting from board, then spawn its units on the returned scenario
+    public Scenario add(StructBoard board) {
+        board.share();
+        Scenario scenario = new Scenario(board);
+        scenarios.add(scenario);
+        return scenario;
+    }
+
+    public int size() {
+        return scenarios.size();
+    }
+
+    public SimulationResult[] run() {
+        return run(() -> false);
+    }
+
+    // Results of the scenarios, or null for those skipped because stop was true before they started
+    public SimulationResult[] run(BooleanSupplier stop) {
+        SimulationResult[] results = new SimulationResult[scenarios.size()];
+        if (results.length == 1 && !stop.getAsBoolean())
+            results[0] = simulate(scenarios.get(0));
+        else if (results.length > 1)
+            POOL.invoke(new Task(results, 0, results.length, stop));
+        return results;
+    }
+
+    // Score of each result, in the order the scenarios were added
+    public double[] run(ToDoubleFunction<SimulationResult> score) {
+        SimulationResult[] results = run();
+        double[] scores = new double[results.length];
+        for (int i = 0; i < results.length; i++)
+            scores[i] = score.applyAsDouble(results[i]);
+        return scores;
+    }
+
+    // Simulations with attribution or traffic are run without the cache, since cached results have neither
+    private SimulationResult simulate(Scenario scenario) {
+        if (cache != null && !scenario.attribute && !scenario.recordTraffic) {
+            CachedSimulation sim = new CachedSimulation(cache, unitInfos, scenario.board, move);
+            for (Spawn spawn : scenario.spawns)
+                sim.addSpawn(spawn.coords, spawn.type, spawn.quantity);
+            return sim.run();
+        }
+        Simulator sim = new ArraySimulator(unitInfos, scenario.board, move);
+        for (Spawn spawn : scenario.spawns)
+            sim.spawnUnits(spawn.coords, spawn.type, spawn.quantity);
+        if (scenario.attribute)
+            sim.attribution = new StructureAttribution();
+        if (scenario.recordTraffic)
+            sim.traffic = new Traffic();
+        sim.run();
+        return new SimulationResult(sim);
+    }
+
+    // Simulates the scenarios from start to end, splitting the range in half until it is one scenario
+    private class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SimulationResult[] results;
+        private final int start;
+        private final int end;
+        private final BooleanSupplier stop;
+
+        Task(SimulationResult[] results, int start, int end, BooleanSupplier stop) {
+            this.results = results;
+            this.start = start;
+            this.end = end;
+            this.stop = stop;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop.getAsBoolean())
+                return;
+            if (end - start == 1) {
+                results[start] = simulate(scenarios.get(start));
+            } else {
+                int mid = (start + end) >>> 1;
+                invokeAll(new Task(results, start, mid, stop), new Task(results, mid, end, stop));
+            }
+        }
+    }
+
+    public static class Scenario {
+        private final StructBoard board;
+        private final List<Spawn> spawns = new ArrayList<>();
+        private boolean attribute = false;
+        private boolean recordTraffic = false;
+
+        private Scenario(StructBoard board) {
+            this.board = board;
+        }
+
+        // Record what each structure does in the result's attribution
+        public Scenario attribute() {
+            attribute = true;
+            return this;
+        }
+
+        // Record where player 2's mobile units go in the result's traffic
+        public Scenario recordTraffic() {
+            recordTraffic = true;
+            return this;
+        }
+
+        public Scenario spawnUnit(Coords coords, UnitType type) {
+            return spawnUnits(coords, type, 1);
+        }
+
+        public Scenario spawnUnits(Coords coords, UnitType type, int quantity) {
+            spawns.add(new Spawn(coords, type, quantity));
+            return this;
+        }
+    }
+
+    private static class Spawn {
+        private final Coords coords;
+        private final UnitType type;
+        private final int quantity;
+
+        private Spawn(Coords coords, UnitType type, int quantity) {
+            this.coords = coords;
+            this.type = type;
+            this.quantity = quantity;
+        }
+    }
+}
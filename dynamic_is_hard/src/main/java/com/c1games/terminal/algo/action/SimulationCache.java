@@ -0,0 +1,89 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.map.GameState;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of action phase results, so the same attack against the same structures is only simulated once. Keys
+ * combine a snapshot of the board, the turn state which decides turret order and the units spawned, and the least
+ * recently used result is evicted when the cache is full. Keys are hashed by the board's zobrist hash, but boards are
+ * compared structure by structure, so boards with the same hash but different health are never confused.
+ */
+public class SimulationCache {
+
+    public long hits = 0;
+    public long misses = 0;
+
+    private final Map<Key, SimulationResult> results;
+
+    public SimulationCache(int capacity) {
+        results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SimulationResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized SimulationResult get(Key key) {
+        SimulationResult result = results.get(key);
+        if (result == null)
+            misses++;
+        else
+            hits++;
+        return result;
+    }
+
+    synchronized void put(Key key, SimulationResult result) {
+        results.put(key, result);
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    static class Key {
+        // frozen, so it keeps the structures the result was simulated on
+        private final StructBoard board;
+        // compared by identity, with the number of pending builds since the move changes as structures are placed
+        private final GameState move;
+        private final int moveVersion;
+        // x, y, type and quantity of each spawn in order
+        private final int[] spawns;
+        private final int hash;
+
+        Key(StructBoard board, GameState move, int moveVersion, int[] spawns) {
+            this.board = board;
+            this.move = move;
+            this.moveVersion = moveVersion;
+            this.spawns = spawns;
+            int h = Long.hashCode(board.zobristHash());
+            h = 31 * h + System.identityHashCode(move);
+            h = 31 * h + moveVersion;
+            this.hash = 31 * h + Arrays.hashCode(spawns);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return hash == other.hash && move == other.move && moveVersion == other.moveVersion
+                    && Arrays.equals(spawns, other.spawns) && board.equals(other.board);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Coords;
+
+/**
+ * Outcome of one action phase simulation without the simulator state, small enough to cache and to collect from many
+ * simulations run at once.
+ */
+public class SimulationResult {
+
+    public final int p1LivesLost;
+    public final int p2LivesLost;
+    public final double p1CoresLost;
+    public final double p2CoresLost;
+    public final Coords[] unitPath;
+    public final Coords[] p1LostStructCoords;
+    // nullable, for simulations run with attribution
+    public final StructureAttribution attribution;
+    // nullable, for simulations run recording traffic
+    public final Traffic traffic;
+
+    SimulationResult(Simulator sim) {
+        p1LivesLost = sim.p1LivesLost;
+        p2LivesLost = sim.p2LivesLost;
+        p1CoresLost = sim.p1CoresLost;
+        p2CoresLost = sim.p2CoresLost;
+        unitPath = sim.unitPath.toArray(new Coords[0]);
+        p1LostStructCoords = sim.p1LostStructCoords.toArray(new Coords[0]);
+        attribution = sim.attribution;
+        traffic = sim.traffic;
+    }
+}
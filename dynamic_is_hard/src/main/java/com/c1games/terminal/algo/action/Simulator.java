@@ -0,0 +1,37 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Shared interface and results of the action phase simulation engines, so that strategy code can switch between
+ * them without changing how it spawns units or reads outcomes.
+ */
+public abstract class Simulator {
+
+    public int p1LivesLost = 0;
+    public int p2LivesLost = 0;
+    public double p1CoresLost = 0;
+    public double p2CoresLost = 0;
+    public Deque<Coords> unitPath = new LinkedList<>();
+    public List<Coords> p1LostStructCoords = new ArrayList<>();
+    // set before running to record what each structure does, nullable
+    public StructureAttribution attribution = null;
+    // set before running to record where player 2's mobile units go, nullable
+    public Traffic traffic = null;
+
+    public boolean spawnUnit(Coords coords, UnitType type) {
+        return spawnUnits(coords, type, 1);
+    }
+
+    // Immediately place or remove units ignoring resource cost
+    public abstract boolean spawnUnits(Coords coords, UnitType type, int quantity);
+
+    // Simulates action phase until completion
+    public abstract void run();
+}
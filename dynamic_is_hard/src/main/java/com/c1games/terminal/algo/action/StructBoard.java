@@ -8,31 +8,65 @@ import com.c1games.terminal.algo.map.Unit;
 import com.c1games.terminal.algo.units.UnitType;
 import com.c1games.terminal.algo.map.SpawnCommand;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
 
+/**
+ * Structures on each tile of the arena. Copying a board is constant time: the structures of the original are moved
+ * into a frozen board shared by both, and each records only the tiles changed since as an overlay on top of it.
+ * Structures on a board may therefore be shared with its copies, which is safe since they are immutable.
+ * <p>
+ * Copying a board with changes since it was last copied moves them into a new frozen board, which changes the fields
+ * read by lookups, so copying is not thread-safe in general. A board read by several threads at once must be shared
+ * first, after which copying it only reads it until it is next changed.
+ */
 public class StructBoard {
 
+    // longest chain of frozen boards under a board before it is flattened
+    private static final int MAX_DEPTH = 8;
+
+    // random keys for each tile and structure type, upgraded or not, mixed with the health bucket for hashing
+    private static final long[][] ZOBRIST_KEYS = new long[BitBoard.TILES][2 * UnitType.values().length];
+    static {
+        Random random = new Random(0x5eed);
+        for (long[] keys : ZOBRIST_KEYS)
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = random.nextLong();
+    }
+
+    // structures of every tile, for boards without a base
     private Structure[][] board;
+    // for overlay boards, the frozen board underneath and the structures of tiles changed from it
+    private StructBoard base;
+    private int depth = 0;
+    private long[] changed = new long[BitBoard.WORDS];
+    private int[] changedTiles;
+    private Structure[] changedStructs;
+    private int numChanged = 0;
+    // tiles with a structure, kept next to the structures so copies and comparisons only visit those tiles
+    final long[] occupied = new long[BitBoard.WORDS];
+    // xor of the zobrist keys of every structure, updated on each change
+    private long hash = 0;
+    // distance fields for pathing, created when first needed and kept up to date afterwards
+    private Pathfinder pathfinder;
 
     public StructBoard() {
         board = new Structure[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
     }
 
+    private StructBoard(Structure[][] board) {
+        this.board = board;
+    }
+
     public StructBoard(GameState move, UnitInformationContainer unitInfos, boolean removeRemoving) {
         board = new Structure[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
-            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
-                Coords coords = new Coords(x, y);
+        for (int tile = 0; tile < MapBounds.BOARD_SIZE * MapBounds.BOARD_SIZE; tile++) {
+            Unit unit = move.getWallAt(tile);
+            if (unit != null && !(removeRemoving && unit.removing)) {
+                Coords coords = new Coords(tile / MapBounds.BOARD_SIZE, tile % MapBounds.BOARD_SIZE);
                 if (MapBounds.inArena(coords)) {
-                    List<Unit> list = move.allUnits[x][y];
-                    if (!list.isEmpty()) {
-                        Unit unit = list.get(0);
-                        if (move.isStructure(list.get(0).type) && !(removeRemoving && unit.removing)) {
-                            Structure struct = new Structure(unit.type, unit.health);
-                            struct.upgraded = unit.upgraded;
-                            setLocation(coords, struct);
-                        }
-                    }
+                    Structure struct = new Structure(unit.type, unit.health, unit.upgraded);
+                    setLocation(coords, struct);
                 }
             }
         }
@@ -47,15 +81,102 @@ public class StructBoard {
     }
 
     public StructBoard(StructBoard toCopy) {
-        board = new Structure[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
-            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
-                Structure struct = toCopy.getLocation(x, y);
-                if (struct != null) {
-                    board[x][y] = new Structure(struct.type, struct.getTargetHealth());
-                    board[x][y].upgraded = struct.upgraded;
-                }
+        synchronized (toCopy) {
+            base = toCopy.freeze();
+            System.arraycopy(toCopy.occupied, 0, occupied, 0, BitBoard.WORDS);
+            hash = toCopy.hash;
+            if (toCopy.pathfinder != null)
+                pathfinder = new Pathfinder(toCopy.pathfinder);
+        }
+        depth = base.depth + 1;
+    }
+
+    // Freeze the current structures so that copies of this board leave it unchanged, before other threads read it
+    synchronized void share() {
+        freeze();
+    }
+
+    // Board holding the current structures which is never changed, for keeping them while this board changes
+    synchronized StructBoard snapshot() {
+        return freeze();
+    }
+
+    // Frozen board holding the current structures, which this board becomes an empty overlay of
+    private StructBoard freeze() {
+        if (board == null && numChanged == 0)
+            return base;
+
+        StructBoard frozen = new StructBoard(board);
+        frozen.base = base;
+        frozen.depth = depth;
+        frozen.changed = changed;
+        frozen.changedTiles = changedTiles;
+        frozen.changedStructs = changedStructs;
+        frozen.numChanged = numChanged;
+        System.arraycopy(occupied, 0, frozen.occupied, 0, BitBoard.WORDS);
+        frozen.hash = hash;
+        if (frozen.depth >= MAX_DEPTH)
+            frozen.flatten();
+
+        board = null;
+        base = frozen;
+        depth = frozen.depth + 1;
+        changed = new long[BitBoard.WORDS];
+        changedTiles = null;
+        changedStructs = null;
+        numChanged = 0;
+        return frozen;
+    }
+
+    // Copy references to all structures into this board so it no longer needs a base
+    private void flatten() {
+        Structure[][] flat = new Structure[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
+        for (int tile = BitBoard.next(occupied, 0); tile >= 0; tile = BitBoard.next(occupied, tile + 1))
+            flat[tile / MapBounds.BOARD_SIZE][tile % MapBounds.BOARD_SIZE] = lookup(tile);
+        board = flat;
+        base = null;
+        depth = 0;
+        changed = new long[BitBoard.WORDS];
+        changedTiles = null;
+        changedStructs = null;
+        numChanged = 0;
+    }
+
+    private Structure lookup(int tile) {
+        if (!BitBoard.get(occupied, tile))
+            return null;
+        StructBoard layer = this;
+        while (layer.board == null) {
+            if (BitBoard.get(layer.changed, tile)) {
+                for (int i = 0; i < layer.numChanged; i++)
+                    if (layer.changedTiles[i] == tile)
+                        return layer.changedStructs[i];
+            }
+            layer = layer.base;
+        }
+        return layer.board[tile / MapBounds.BOARD_SIZE][tile % MapBounds.BOARD_SIZE];
+    }
+
+    private void store(int tile, Structure put) {
+        hash ^= zobristKey(tile, lookup(tile)) ^ zobristKey(tile, put);
+        if (board != null) {
+            board[tile / MapBounds.BOARD_SIZE][tile % MapBounds.BOARD_SIZE] = put;
+        } else if (BitBoard.get(changed, tile)) {
+            for (int i = 0; i < numChanged; i++)
+                if (changedTiles[i] == tile)
+                    changedStructs[i] = put;
+        } else {
+            if (changedTiles == null) {
+                changedTiles = new int[8];
+                changedStructs = new Structure[8];
+            } else if (numChanged == changedTiles.length) {
+                changedTiles = Arrays.copyOf(changedTiles, 2 * numChanged);
+                changedStructs = Arrays.copyOf(changedStructs, 2 * numChanged);
             }
+            changedTiles[numChanged] = tile;
+            changedStructs[numChanged] = put;
+            numChanged++;
+            BitBoard.set(changed, tile);
         }
     }
     // else {
@@ -80,13 +201,10 @@ public class StructBoard {
 
     public boolean removeDead() {
         boolean removedSomething = false;
-        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
-            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
-                Structure struct = board[x][y];
-                if (struct != null && struct.getTargetHealth() <= 0) {
-                    board[x][y] = null;
-                    removedSomething = true;
-                }
+        for (int tile = BitBoard.next(occupied, 0); tile >= 0; tile = BitBoard.next(occupied, tile + 1)) {
+            if (lookup(tile).getTargetHealth() <= 0) {
+                setLocation(new Coords(tile / MapBounds.BOARD_SIZE, tile % MapBounds.BOARD_SIZE), null);
+                removedSomething = true;
             }
         }
         return removedSomething;
@@ -95,13 +213,12 @@ public class StructBoard {
     public boolean build(UnitInformationContainer unitInfos, UnitType type, Coords coords) {
         Structure struct = getLocation(coords);
         if (type == UnitType.Upgrade && struct != null && !struct.upgraded) {
-            struct.upgraded = true;
-            double initialHealth = unitInfos.getInfo(struct.type, false).startHealth.getAsDouble();
-            double upgradedHealth = unitInfos.getInfo(struct.type, true).startHealth.getAsDouble();
-            struct.takeDamage(initialHealth - upgradedHealth);
+            double initialHealth = unitInfos.startHealth[struct.type.ordinal()][0];
+            double upgradedHealth = unitInfos.startHealth[struct.type.ordinal()][1];
+            setLocation(coords, struct.upgraded(upgradedHealth - initialHealth));
             return true;
-        } else if (unitInfos.getInfo(type).unitCategory.orElse(-1) == GameState.TowerUnitCategory && struct == null) {
-            Structure newStruct = new Structure(type, unitInfos.getInfo(type).startHealth.getAsDouble());
+        } else if (unitInfos.unitCategory[type.ordinal()][0] == GameState.TowerUnitCategory && struct == null) {
+            Structure newStruct = new Structure(type, unitInfos.startHealth[type.ordinal()][0]);
             setLocation(coords, newStruct);
             return true;
         } else {
@@ -109,20 +226,96 @@ public class StructBoard {
         }
     }
 
+    // Replaces the structure at coords with a copy that has taken damage
+    public void damage(Coords coords, double damage) {
+        Structure struct = getLocation(coords);
+        if (struct != null) {
+            store(coords.x * MapBounds.BOARD_SIZE + coords.y, struct.withDamage(damage));
+        }
+    }
+
     public Structure getLocation(int x, int y) {
-        return getLocation(new Coords(x, y));
+        if (x < 0 || y < 0 || x >= MapBounds.BOARD_SIZE || y >= MapBounds.BOARD_SIZE || !MapBounds.ARENA[x][y])
+            return null;
+        else
+            return lookup(x * MapBounds.BOARD_SIZE + y);
     }
 
     public Structure getLocation(Coords coords) {
         if (!MapBounds.inArena(coords))
             return null;
         else
-            return board[coords.x][coords.y];
+            return lookup(coords.x * MapBounds.BOARD_SIZE + coords.y);
     }
 
     public void setLocation(Coords coords, Structure put) {
-        if (MapBounds.inArena(coords))
-            board[coords.x][coords.y] = put;
+        if (MapBounds.inArena(coords)) {
+            store(coords.x * MapBounds.BOARD_SIZE + coords.y, put);
+            if (put != null)
+                BitBoard.set(occupied, coords.x * MapBounds.BOARD_SIZE + coords.y);
+            else
+                BitBoard.clear(occupied, coords.x * MapBounds.BOARD_SIZE + coords.y);
+            if (pathfinder != null)
+                pathfinder.setBlocked(coords.x, coords.y, put != null);
+        }
+    }
+
+    // Distance fields of the current structures, shared with copies of this board until either changes
+    // Compute the distance fields of this board once for every copy of its pathfinder
+    synchronized void computeFields() {
+        getPathfinder().computeFields();
+    }
+
+    // Pathfinder sharing the fields of this board, which can be used while other threads copy this board
+    synchronized Pathfinder copyPathfinder() {
+        computeFields();
+        return new Pathfinder(pathfinder);
+    }
+
+    public synchronized Pathfinder getPathfinder() {
+        if (pathfinder == null)
+            pathfinder = new Pathfinder(this);
+        return pathfinder;
+    }
+
+    // Same structures with the same health and upgrades on every tile
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof StructBoard))
+            return false;
+        StructBoard otherBoard = (StructBoard) other;
+        if (!BitBoard.equals(occupied, otherBoard.occupied))
+            return false;
+        for (int tile = BitBoard.next(occupied, 0); tile >= 0; tile = BitBoard.next(occupied, tile + 1)) {
+            Structure struct = lookup(tile);
+            Structure otherStruct = otherBoard.lookup(tile);
+            if (struct.type != otherStruct.type || struct.upgraded != otherStruct.upgraded
+                    || struct.getTargetHealth() != otherStruct.getTargetHealth())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    // Hash of the type, upgrade and whole number of health of each structure
+    public long zobristHash() {
+        return hash;
+    }
+
+    private static long zobristKey(int tile, Structure struct) {
+        if (struct == null)
+            return 0;
+        long key = ZOBRIST_KEYS[tile][2 * struct.type.ordinal() + (struct.upgraded ? 1 : 0)];
+        long bucket = (long) Math.ceil(struct.getTargetHealth());
+        // splitmix64 finalizer
+        long z = key + bucket * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
     }
 
     private int getTargetEdge(Coords coords) {
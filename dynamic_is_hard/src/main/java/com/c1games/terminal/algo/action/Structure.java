@@ -8,27 +8,38 @@ import com.c1games.terminal.algo.units.UnitType;
 import java.util.List;
 import java.util.ArrayList;
 
+/**
+ * A structure on a board. Structures are immutable, since boards share them with their copies and with the snapshots
+ * used as cache keys, so damage and upgrades give a new structure to replace this one with.
+ */
 public class Structure implements GameUnit {
 
     public final UnitType type;
-    private double health;
-    public boolean upgraded = false;
+    private final double health;
+    public final boolean upgraded;
 
     public Structure(UnitType type, double health) {
+        this(type, health, false);
+    }
+
+    public Structure(UnitType type, double health, boolean upgraded) {
         this.type = type;
         this.health = health;
+        this.upgraded = upgraded;
     }
 
     public double getTargetHealth() {
         return health;
     }
 
-    public void takeDamage(double damage) {
-        health -= damage;
+    // A copy of this structure after taking damage
+    public Structure withDamage(double damage) {
+        return new Structure(type, health - damage, upgraded);
     }
 
-    public void takeSplashDamage(double damage) {
-        health -= damage;
+    // An upgraded copy of this structure, with its health changed by what upgrading adds
+    public Structure upgraded(double addedHealth) {
+        return new Structure(type, health + addedHealth, true);
     }
 
     public static PlayerId getPlayer(int yCoord) {
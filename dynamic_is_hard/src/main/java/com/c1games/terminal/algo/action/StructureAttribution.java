@@ -0,0 +1,24 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.map.MapBounds;
+
+/**
+ * What each structure did in one simulated action phase, by tile: the damage turrets dealt, the shielding supports
+ * gave, the damage structures took, and whether opening the tile could have changed the path of a mobile unit at any
+ * point. A structure which did none of these can be removed without changing the outcome of the simulation.
+ */
+public class StructureAttribution {
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+
+    public final double[] damageDealt = new double[SIZE * SIZE];
+    public final double[] shieldGiven = new double[SIZE * SIZE];
+    public final double[] damageTaken = new double[SIZE * SIZE];
+    public final boolean[] onPathCut = new boolean[SIZE * SIZE];
+
+    // Whether nothing in the simulation depended on the structure at coords
+    public boolean inert(Coords coords) {
+        int tile = coords.x * SIZE + coords.y;
+        return damageDealt[tile] == 0 && shieldGiven[tile] == 0 && damageTaken[tile] == 0 && !onPathCut[tile];
+    }
+}
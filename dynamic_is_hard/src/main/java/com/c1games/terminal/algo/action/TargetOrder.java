@@ -0,0 +1,53 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.map.MapBounds;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Offsets from a mobile unit to every tile it could target, in the order structure targets are chosen: by distance,
+ * then by row (bottom up for player 1 and top down for player 2), then left to right. Offsets at the same distance form
+ * a ring, and a search can stop after the first ring with a target since any farther structure is never chosen.
+ * <p>
+ * The tables cover every offset on the board, so the offsets within any configured attack range are a prefix of them.
+ */
+class TargetOrder {
+
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+
+    // indexed by player 1 or 2 as 0 or 1, then position in order
+    static final int[][] DX = new int[2][];
+    static final int[][] DY = new int[2][];
+    static final int[][] SQUARED_DISTANCE = new int[2][];
+
+    static {
+        for (int p = 0; p < 2; p++) {
+            List<int[]> offsets = new ArrayList<>();
+            for (int dx = 1 - SIZE; dx < SIZE; dx++)
+                for (int dy = 1 - SIZE; dy < SIZE; dy++)
+                    offsets.add(new int[] { dx, dy, dx * dx + dy * dy });
+            int rowOrder = p == 0 ? 1 : -1;
+            offsets.sort(Comparator.<int[]>comparingInt(o -> o[2]).thenComparingInt(o -> rowOrder * o[1])
+                    .thenComparingInt(o -> o[0]));
+
+            DX[p] = new int[offsets.size()];
+            DY[p] = new int[offsets.size()];
+            SQUARED_DISTANCE[p] = new int[offsets.size()];
+            for (int i = 0; i < offsets.size(); i++) {
+                DX[p][i] = offsets.get(i)[0];
+                DY[p][i] = offsets.get(i)[1];
+                SQUARED_DISTANCE[p][i] = offsets.get(i)[2];
+            }
+        }
+    }
+
+    // Largest squared distance whose Coords.distance is within range, -1 if none
+    static int squaredRange(double range) {
+        int rangeSquared = -1;
+        while ((float) Math.sqrt(rangeSquared + 1) <= range)
+            rangeSquared++;
+        return rangeSquared;
+    }
+}
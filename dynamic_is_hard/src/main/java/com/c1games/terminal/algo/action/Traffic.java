@@ -0,0 +1,15 @@
+package com.c1games.terminal.algo.action;
+
+import com.c1games.terminal.algo.map.MapBounds;
+
+/**
+ * Where player 2's mobile units went in one simulated action phase, by tile: the frames stacks spent there, and the
+ * health of the units entering it. A stack counts once per frame however many units it has, as a turret attacks one
+ * unit per frame.
+ */
+public class Traffic {
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+
+    public final int[] frames = new int[SIZE * SIZE];
+    public final double[] health = new double[SIZE * SIZE];
+}
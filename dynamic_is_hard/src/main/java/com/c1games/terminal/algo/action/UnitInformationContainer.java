@@ -1,45 +1,64 @@
 package com.c1games.terminal.algo.action;
 
 import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.units.UnitStats;
 import com.c1games.terminal.algo.units.UnitType;
 
-import java.util.List;
-import java.util.ArrayList;
-
+/**
+ * Unit information from the config, upgraded or not. The stats used while simulating and planning are copied from the
+ * config's UnitStats into arrays indexed by type ordinal and then 0 or 1 for upgraded, so reading them in the inner
+ * loops of the simulators needs no object lookups. The arrays must not be modified.
+ */
 // this class should be unnecessary, but I don't understand GSON for Config.java
 public class UnitInformationContainer {
 
-    private final List<Config.UnitInformation> unitInfos;
-    private final List<Config.UnitInformation> upgradedUnitInfos;
+    private static final int NUM_TYPES = UnitType.values().length;
 
-    public UnitInformationContainer(Config config) {
-        unitInfos = config.unitInformation;
-        upgradedUnitInfos = new ArrayList<>();
-        for (Config.UnitInformation info : unitInfos) {
-            Config.UnitInformation copy = new Config.UnitInformation(info);
-            if (copy.upgrade.isPresent())
-                copy.upgrade();
-            upgradedUnitInfos.add(copy);
-        }
-    }
+    // -1 for no category
+    public final int[][] unitCategory = new int[NUM_TYPES][2];
+    public final double[][] speed = new double[NUM_TYPES][2];
+    public final double[][] startHealth = new double[NUM_TYPES][2];
+    // full cost, including the upgrade if upgraded
+    public final double[][] cost1 = new double[NUM_TYPES][2];
+    public final double[][] cost2 = new double[NUM_TYPES][2];
+    // cores to build the unit if not upgraded, or to upgrade it if upgraded
+    public final double[][] cores = new double[NUM_TYPES][2];
+    public final double[][] attackDamageWalker = new double[NUM_TYPES][2];
+    public final double[][] attackDamageTower = new double[NUM_TYPES][2];
+    public final double[][] attackRange = new double[NUM_TYPES][2];
+    public final double[][] shieldPerUnit = new double[NUM_TYPES][2];
+    public final double[][] shieldBonusPerY = new double[NUM_TYPES][2];
+    public final double[][] shieldRange = new double[NUM_TYPES][2];
+    // largest squared distance within each range
+    public final int[][] attackRangeSquared = new int[NUM_TYPES][2];
+    public final int[][] shieldRangeSquared = new int[NUM_TYPES][2];
 
-    public Config.UnitInformation getInfo(UnitType type) {
-        return unitInfos.get(type.ordinal());
-    }
-
-    public Config.UnitInformation getInfo(UnitType type, boolean upgraded) {
-        if (upgraded) {
-            return upgradedUnitInfos.get(type.ordinal());
-        } else {
-            return unitInfos.get(type.ordinal());
+    public UnitInformationContainer(Config config) {
+        UnitType[] types = UnitType.values();
+        for (int t = 0; t < Math.min(NUM_TYPES, config.unitInformation.size()); t++) {
+            for (int upgraded = 0; upgraded < 2; upgraded++) {
+                UnitStats stats = config.unitStats(types[t], upgraded == 1);
+                unitCategory[t][upgraded] = stats.unitCategory;
+                speed[t][upgraded] = stats.speed;
+                startHealth[t][upgraded] = stats.startHealth;
+                cost1[t][upgraded] = stats.cost1;
+                cost2[t][upgraded] = stats.cost2;
+                attackDamageWalker[t][upgraded] = stats.attackDamageWalker;
+                attackDamageTower[t][upgraded] = stats.attackDamageTower;
+                attackRange[t][upgraded] = stats.attackRange;
+                shieldPerUnit[t][upgraded] = stats.shieldPerUnit;
+                shieldBonusPerY[t][upgraded] = stats.shieldBonusPerY;
+                shieldRange[t][upgraded] = stats.shieldRange;
+                attackRangeSquared[t][upgraded] = TargetOrder.squaredRange(stats.attackRange);
+                shieldRangeSquared[t][upgraded] = TargetOrder.squaredRange(stats.shieldRange);
+            }
+            cores[t][0] = cost1[t][0];
+            cores[t][1] = cost1[t][1] - cost1[t][0];
         }
     }
 
     public double getCores(UnitType type, boolean upgrade) {
-        if (upgrade)
-            return getInfo(type, true).cost1.orElse(0) - getInfo(type, false).cost1.orElse(0);
-        else
-            return getInfo(type, false).cost1.orElse(0);
+        return cores[type.ordinal()][upgrade ? 1 : 0];
     }
 
-}
\ No newline at end of file
+}
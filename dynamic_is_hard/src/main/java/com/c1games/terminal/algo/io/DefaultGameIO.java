@@ -5,11 +5,17 @@ import com.c1games.terminal.algo.FrameData;
 import com.c1games.terminal.algo.GameIO;
 import com.c1games.terminal.algo.map.GameState;
 import com.c1games.terminal.algo.map.SpawnCommand;
+import com.c1games.terminal.algo.serialization.FrameDataParser;
+import com.c1games.terminal.algo.serialization.SpawnCommandWriter;
 import com.c1games.terminal.algo.units.UnitTypeAtlas;
-import com.google.gson.Gson;
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
 
 /**
@@ -20,11 +26,15 @@ public class DefaultGameIO implements GameIO {
     public TerminatedStringReader scanner;
     private FrameData lastFrame;
 
-    private Gson frameDataGson;
-    private Gson spawnCommandGson;
+    private FrameDataParser frameDataParser;
+    private SpawnCommandWriter spawnCommandWriter;
+    private final FileChannel out;
 
     public DefaultGameIO() {
-        scanner = new TerminatedStringReader(System.in, '\n');
+        // read standard input through its file channel, rather than the buffered System.in stream
+        scanner = new TerminatedStringReader(new FileInputStream(FileDescriptor.in), '\n');
+        // and write turns to standard output through its file channel, rather than System.out
+        out = new FileOutputStream(FileDescriptor.out).getChannel();
     }
 
     @Override
@@ -41,8 +51,8 @@ public class DefaultGameIO implements GameIO {
 
             // now that we have the config, we can create the GSON instances for the other serializable types.
             UnitTypeAtlas atlas = new UnitTypeAtlas(config);
-            frameDataGson = FrameData.gson(atlas);
-            spawnCommandGson = SpawnCommand.gson(atlas);
+            frameDataParser = new FrameDataParser(atlas);
+            spawnCommandWriter = new SpawnCommandWriter(atlas);
         }
         return config;
     }
@@ -51,14 +61,36 @@ public class DefaultGameIO implements GameIO {
     public FrameData nextFrameAnyType() {
         // we need to make sure that the first line we read from stdin is the config
         config();
-        // then we can read the next frame
-        String frameData;
+        // then we can parse the next frame straight from the reader's buffer
         try {
-            frameData = scanner.await();
+            lastFrame = frameDataParser.parse(scanner.awaitFrame());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return lastFrame;
+    }
+
+    /**
+     * Wait for the next frame, decoding only as much of an action frame as actionFrames wants. An action frame which
+     * is not wanted has only its turn info, and one which is has its events decoded now, or once read through
+     * FrameData.events() if actionFrames wants lazy events. Other frames are decoded in full.
+     */
+    public FrameData nextFrame(FrameSubscription actionFrames) {
+        config();
+        try {
+            ByteBuffer frame = scanner.awaitFrame();
+            FrameData.TurnInfo turnInfo = frameDataParser.peekTurnInfo(frame);
+            if (turnInfo == null || turnInfo.phase != FrameData.TurnInfo.Phase.Action) {
+                lastFrame = frameDataParser.parse(frame);
+            } else if (actionFrames.wants(turnInfo.actionPhaseFrameNumber)) {
+                lastFrame = frameDataParser.parse(frame, actionFrames.wantsUnits(), actionFrames.wantsLazyEvents());
+            } else {
+                lastFrame = new FrameData();
+                lastFrame.turnInfo = turnInfo;
+            }
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
-        lastFrame = frameDataGson.fromJson(frameData, FrameData.class);
         return lastFrame;
     }
 
@@ -84,10 +116,22 @@ public class DefaultGameIO implements GameIO {
 
     @Override
     public void submitTurn(GameState builder) {
-        // serialize and send to stdout
-        for (List<SpawnCommand> commands : builder.getSpawnCommands()) {
-            String line = spawnCommandGson.toJson(commands);
-            System.out.println(line);
+        submitCommands(builder.getSpawnCommands());
+    }
+
+    /**
+     * Submit the build and deploy commands of a turn, as given by GameState.getSpawnCommands.
+     */
+    public void submitCommands(List<List<SpawnCommand>> spawnCommands) {
+        // serialize each list of commands as a line, and send them to stdout together
+        for (List<SpawnCommand> commands : spawnCommands)
+            spawnCommandWriter.write(commands);
+        // anything printed to System.out goes first
+        System.out.flush();
+        try {
+            spawnCommandWriter.flush(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -0,0 +1,89 @@
+package com.c1games.terminal.algo.io;
+
+/**
+ * The action frames a game loop wants, and how much of each it needs. Frames which are not wanted are skipped after
+ * reading their turn info, so most of a long action phase costs almost nothing to read.
+ */
+public final class FrameSubscription {
+    // frames wanted are the multiples of interval below limit
+    private final int interval;
+    private final int limit;
+    // whether frames are given with their units, or only with their turn info, stats, and events
+    private final boolean units;
+    // whether one game state is kept up to date from frame to frame
+    private final boolean incremental;
+    // whether events are only decoded once read through FrameData.events()
+    private final boolean lazyEvents;
+
+    private FrameSubscription(int interval, int limit, boolean units, boolean incremental, boolean lazyEvents) {
+        this.interval = interval;
+        this.limit = limit;
+        this.units = units;
+        this.incremental = incremental;
+        this.lazyEvents = lazyEvents;
+    }
+
+    public static FrameSubscription everyFrame() {
+        return every(1);
+    }
+
+    /**
+     * The first frame of each action phase, with the board as it was when the units were spawned.
+     */
+    public static FrameSubscription firstFrame() {
+        return new FrameSubscription(1, 1, true, false, false);
+    }
+
+    /**
+     * Every nth frame of each action phase, starting from the first.
+     */
+    public static FrameSubscription every(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("interval must be positive: " + n);
+        return new FrameSubscription(n, Integer.MAX_VALUE, true, false, false);
+    }
+
+    public static FrameSubscription none() {
+        return new FrameSubscription(1, 0, true, false, false);
+    }
+
+    /**
+     * The same frames without their units, which are then given without building a game state for them.
+     */
+    public FrameSubscription eventsOnly() {
+        return new FrameSubscription(interval, limit, false, false, lazyEvents);
+    }
+
+    /**
+     * The same frames with their units, given as one game state which a GameStateTracker keeps up to date from the
+     * events of each frame, rather than a new one each frame. This pays off when consecutive frames are wanted, as the
+     * game state is built again after any skipped frame.
+     */
+    public FrameSubscription incremental() {
+        return new FrameSubscription(interval, limit, true, true, lazyEvents);
+    }
+
+    /**
+     * The same frames with their events only decoded once read through FrameData.events(), for loops which read the
+     * events of few frames. Until then the events field of the frame data is null.
+     */
+    public FrameSubscription lazyEvents() {
+        return new FrameSubscription(interval, limit, units, incremental, true);
+    }
+
+    public boolean wants(int actionPhaseFrameNumber) {
+        return actionPhaseFrameNumber >= 0 && actionPhaseFrameNumber < limit && actionPhaseFrameNumber % interval == 0;
+    }
+
+    public boolean wantsUnits() {
+        return units;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean wantsLazyEvents() {
+        return lazyEvents;
+    }
+}
@@ -1,6 +1,7 @@
 package com.c1games.terminal.algo.io;
 
 import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.FrameData;
 import com.c1games.terminal.algo.GameIO;
 import com.c1games.terminal.algo.map.GameState;
 
@@ -22,6 +23,30 @@ public interface GameLoop {
      */
     default void onActionFrame(GameIO io, GameState move) {}
 
+    /**
+     * The action frames to process, which is asked once after initialize. Frames which are not wanted are skipped
+     * without being fully decoded, and the events of those which are are decoded with them unless the subscription
+     * wants lazy events. By default every action frame is processed.
+     */
+    default FrameSubscription actionFrames() {
+        return FrameSubscription.everyFrame();
+    }
+
+    /**
+     * Callback for processing an action frame when the subscription is events only. The frame data has its turn info,
+     * stats, and events, but no units.
+     */
+    default void onActionEvents(GameIO io, FrameData frame) {}
+
+    /**
+     * The deadline for each turn, which is asked once after initialize, or null for turns to take as long as they
+     * take. With a deadline, onTurn runs on another thread so that a fallback move can be submitted if it does not
+     * finish in time, though the callbacks are still never run at the same time.
+     */
+    default TurnDeadline turnDeadline() {
+        return null;
+    }
+
     /**
      * Callback for configuring a movebuilder each action frame, which the game loop driver will then submit as
      * a turn.
@@ -5,39 +5,121 @@ import com.c1games.terminal.algo.FrameData;
 import com.c1games.terminal.algo.GameIO;
 import com.c1games.terminal.algo.map.GameState;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Code that accepts some @code GameLoop object and runs it for the duration of the game.
  */
 public class GameLoopDriver implements Runnable {
     private final GameLoop loop;
 
+    // runs onTurn when the loop has a deadline, nullable
+    private ExecutorService turns;
+    // a turn which missed its deadline and is still finishing, nullable, giving when it completed
+    private Future<Long> lateTurn;
+
     public GameLoopDriver(GameLoop loop) {
         this.loop = loop;
     }
 
     @Override
     public void run() {
-        GameIO io = new DefaultGameIO();
-
-        // wait for config, invoke config handler
-        Config config = io.config();
-        loop.initialize(io, config);
-
-        while (true) {
-            FrameData frame = io.nextFrameAnyType();
-            if (frame.turnInfo.phase == FrameData.TurnInfo.Phase.Action) {
-                // invoke action frame handler
-                GameState move = new GameState(config, frame);
-                loop.onActionFrame(io, move);
-            } else if (frame.turnInfo.phase == FrameData.TurnInfo.Phase.Deploy) {
-                // invoke the move handler and then submit the move builder
-                GameState move = new GameState(config, frame);
-                loop.onTurn(io, move);
-                io.submitTurn(move);
-            } else {
-                // game over, exit
-                return;
+        // frames are read ahead on another thread, while the loop's callbacks run on this one
+        try (PrefetchingGameIO io = new PrefetchingGameIO(new DefaultGameIO())) {
+            // wait for config, invoke config handler
+            Config config = io.config();
+            loop.initialize(io, config);
+            FrameSubscription actionFrames = loop.actionFrames();
+            TurnDeadline deadline = loop.turnDeadline();
+            if (deadline != null) {
+                turns = Executors.newSingleThreadExecutor(task -> {
+                    Thread thread = new Thread(task, "turn");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            io.start(actionFrames);
+
+            while (true) {
+                // only the action frames the loop wants are read ahead
+                FrameData frame = io.nextFrameAnyType();
+                awaitLateTurn(deadline);
+                if (frame.turnInfo.phase == FrameData.TurnInfo.Phase.Action) {
+                    // invoke action frame handler
+                    if (actionFrames.wantsUnits())
+                        loop.onActionFrame(io, io.lastMove());
+                    else
+                        loop.onActionEvents(io, frame);
+                } else if (frame.turnInfo.phase == FrameData.TurnInfo.Phase.Deploy) {
+                    // invoke the move handler and then submit the move builder
+                    GameState move = io.lastMove();
+                    if (deadline != null) {
+                        runTurn(io, move, deadline, io.lastFrameNanos());
+                    } else {
+                        loop.onTurn(io, move);
+                        io.submitTurn(move);
+                    }
+                } else {
+                    // game over, exit
+                    return;
+                }
             }
+        } finally {
+            if (turns != null)
+                turns.shutdownNow();
+        }
+    }
+
+    // run onTurn until the deadline's limit from when its frame arrived, submitting its fallback instead if it is not
+    // done by then, unless it has committed to its move
+    private void runTurn(PrefetchingGameIO io, GameState move, TurnDeadline deadline, long arrivalNanos) {
+        deadline.start(move.data, arrivalNanos);
+        Future<Long> turn = turns.submit(() -> {
+            loop.onTurn(io, move);
+            return System.nanoTime();
+        });
+        try {
+            long completedNanos;
+            try {
+                completedNanos = turn.get(deadline.limitRemainingMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (deadline.miss()) {
+                    GameIO.debug().println("Missed the deadline of turn " + move.data.turnInfo.turnNumber);
+                    io.submitCommands(deadline.fallback());
+                    deadline.submitted();
+                    // finished once it completes, before the next turn starts
+                    lateTurn = turn;
+                    return;
+                }
+                // committed to its move just before the limit, and only has its bookkeeping left
+                completedNanos = turn.get();
+            }
+            io.submitTurn(move);
+            deadline.submitted();
+            deadline.finish(completedNanos);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // wait for a late turn to finish, so that the loop's callbacks never overlap
+    private void awaitLateTurn(TurnDeadline deadline) {
+        if (lateTurn == null)
+            return;
+        try {
+            deadline.finish(lateTurn.get());
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
+        lateTurn = null;
     }
 }
@@ -0,0 +1,177 @@
+package com.c1games.terminal.algo.io;
+
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.GameIO;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.GameStateTracker;
+import com.c1games.terminal.algo.map.SpawnCommand;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game IO which reads and parses frames on a background thread, so standard input keeps being drained while the algo
+ * computes its turn. The game states for deploy frames, and for action frames with units, are built there too. Frames
+ * wait in a bounded queue, and the reader blocks once it is full until the algo catches up. The reader stops after the
+ * frame which ends the game.
+ * <p>
+ * Only the action frames wanted by the subscription are queued, and they are decoded as DefaultGameIO.nextFrame does.
+ * Frames must be taken from one thread. For an incremental subscription, the game state for action frames is instead
+ * kept up to date on that thread as frames are taken.
+ */
+class PrefetchingGameIO implements GameIO, AutoCloseable {
+    private static final int QUEUE_CAPACITY = 16;
+    // queued in place of a frame when reading failed
+    private static final Prefetched FAILED = new Prefetched(null, null, 0);
+
+    private final DefaultGameIO io;
+    private final BlockingQueue<Prefetched> frames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private Thread reader;
+    private GameStateTracker tracker; // nullable
+    private volatile RuntimeException failure;
+    private FrameData lastFrame;
+    private GameState lastMove;
+    private long lastFrameNanos;
+
+    PrefetchingGameIO(DefaultGameIO io) {
+        this.io = io;
+    }
+
+    /**
+     * Start reading frames in the background. The config is read first, on the calling thread.
+     */
+    void start(FrameSubscription actionFrames) {
+        io.config();
+        if (actionFrames.isIncremental())
+            tracker = new GameStateTracker(io.config());
+        reader = new Thread(() -> read(actionFrames), "frame-prefetch");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void read(FrameSubscription actionFrames) {
+        try {
+            while (true) {
+                FrameData frame = io.nextFrame(actionFrames);
+                long arrivalNanos = System.nanoTime();
+                FrameData.TurnInfo.Phase phase = frame.turnInfo.phase;
+                int frameNumber = frame.turnInfo.actionPhaseFrameNumber;
+                if (phase == FrameData.TurnInfo.Phase.Action && !actionFrames.wants(frameNumber))
+                    continue;
+                boolean units = phase == FrameData.TurnInfo.Phase.Deploy
+                        || (phase == FrameData.TurnInfo.Phase.Action && actionFrames.wantsUnits()
+                        && !actionFrames.isIncremental());
+                frames.put(new Prefetched(frame, units ? new GameState(io.config(), frame) : null, arrivalNanos));
+                if (phase != FrameData.TurnInfo.Phase.Action && phase != FrameData.TurnInfo.Phase.Deploy)
+                    return;
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (RuntimeException e) {
+            failure = e;
+            try {
+                frames.put(FAILED);
+            } catch (InterruptedException closed) {
+                // closed
+            }
+        }
+    }
+
+    @Override
+    public Config config() {
+        return io.config();
+    }
+
+    @Override
+    public FrameData nextTurnFrame() {
+        FrameData frame;
+        do {
+            frame = nextFrameAnyType();
+        } while (frame.turnInfo.phase == FrameData.TurnInfo.Phase.Action);
+        return frame;
+    }
+
+    @Override
+    public GameState nextMoveBuilder() {
+        return new GameState(config(), nextTurnFrame());
+    }
+
+    /**
+     * The next queued frame, waiting for the reader if there is none.
+     */
+    @Override
+    public FrameData nextFrameAnyType() {
+        if (reader == null)
+            throw new IllegalStateException("not started");
+        try {
+            Prefetched next;
+            while ((next = frames.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                if (!reader.isAlive() && frames.isEmpty())
+                    throw new IllegalStateException("no frames after the end of the game");
+            }
+            if (next == FAILED)
+                throw new IllegalStateException(failure);
+            lastFrame = next.frame;
+            lastMove = next.move;
+            lastFrameNanos = next.arrivalNanos;
+            if (tracker != null) {
+                GameState live = tracker.update(lastFrame);
+                if (live != null)
+                    lastMove = live;
+            }
+            return lastFrame;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public FrameData lastFrame() {
+        return lastFrame;
+    }
+
+    /**
+     * The game state built for the last frame, nullable for frames without units.
+     */
+    GameState lastMove() {
+        return lastMove;
+    }
+
+    /**
+     * When the last frame was read, by System.nanoTime(), which may be well before it was taken from the queue.
+     */
+    long lastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    @Override
+    public void submitTurn(GameState builder) {
+        io.submitTurn(builder);
+    }
+
+    void submitCommands(List<List<SpawnCommand>> spawnCommands) {
+        io.submitCommands(spawnCommands);
+    }
+
+    @Override
+    public void close() {
+        if (reader != null)
+            reader.interrupt();
+    }
+
+    private static class Prefetched {
+        private final FrameData frame;
+        // nullable
+        private final GameState move;
+        private final long arrivalNanos;
+
+        private Prefetched(FrameData frame, GameState move, long arrivalNanos) {
+            this.frame = frame;
+            this.move = move;
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+}
@@ -1,48 +1,88 @@
 package com.c1games.terminal.algo.io;
 
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * A reader of framed strings from an inputstream.
+ * A reader of framed strings from a channel.
+ * <p>
+ * Bytes are read in bulk into one reusable direct buffer, which is scanned for the terminator eight bytes at a time.
+ * Frames can be taken either as strings or as views of the buffer, which are only valid until the next read.
  */
 public class TerminatedStringReader implements AutoCloseable {
-    private final int terminator;
-    private final InputStream in;
-    private StringBuilder buffer;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private final byte terminator;
+    private final long terminatorPattern;
+    private final ReadableByteChannel channel;
+    // the stream the channel reads from, which can tell how much can be read without blocking, nullable
+    private final FileInputStream file;
+    // unread bytes are [head, tail), and [head, scanned) has no terminator
+    private ByteBuffer buffer;
+    private ByteBuffer frame;
+    private int head = 0;
+    private int tail = 0;
+    private int scanned = 0;
+
+    // a read into the buffer from the filler thread, which owns the buffer until it is done
+    private ExecutorService filler;
+    private Future<Integer> pendingRead;
 
     public TerminatedStringReader(InputStream in, char terminator) {
-        this.terminator = (int) terminator;
-        this.in = in;
-        this.buffer = new StringBuilder();
+        this(in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : Channels.newChannel(in),
+                in instanceof FileInputStream ? (FileInputStream) in : null, terminator);
+    }
+
+    public TerminatedStringReader(ReadableByteChannel channel, char terminator) {
+        this(channel, null, terminator);
+    }
+
+    private TerminatedStringReader(ReadableByteChannel channel, FileInputStream file, char terminator) {
+        this.terminator = (byte) terminator;
+        this.terminatorPattern = (this.terminator & 0xFF) * ONES;
+        this.channel = channel;
+        this.file = file;
+        allocate(INITIAL_CAPACITY);
     }
 
     /**
      * Nullable, non-blocking.
      */
     public String receive() throws IOException {
-        boolean terminated = false;
-        boolean exausted = false;
-        while (!terminated && !exausted) {
-            if (in.available() > 0) {
-                int b = in.read();
-                if (b == -1)
-                    throw new IOException("stream closed");
-                else if (b == terminator)
-                    terminated = true;
-                else
-                    buffer.append((char) b);
-            } else {
-                exausted = true;
+        ByteBuffer found = receiveFrame();
+        return found == null ? null : decode(found);
+    }
+
+    /**
+     * Nullable, non-blocking. As awaitFrame, but returns null if no frame is complete yet. Bytes which can be read
+     * without blocking are read at once, and otherwise a read is left pending on the filler thread for a later call.
+     */
+    public ByteBuffer receiveFrame() throws IOException {
+        while (true) {
+            ByteBuffer found = nextBufferedFrame();
+            if (found != null || pendingRead != null)
+                return found;
+            if (file == null || file.available() <= 0) {
+                startRead();
+                return null;
             }
-        }
-        if (terminated) {
-            String string = buffer.toString();
-            buffer = new StringBuilder();
-            return string;
-        } else {
-            return null;
+            makeRoom();
+            finishRead(channel.read(buffer));
         }
     }
 
@@ -50,60 +90,155 @@ public class TerminatedStringReader implements AutoCloseable {
      * Blocking, non-nullable.
      */
     public String await() throws IOException {
-        boolean terminated = false;
-        while (!terminated) {
-            int b = in.read();
-            if (b == -1)
-                throw new IOException("stream closed");
-            else if (b == terminator)
-                terminated = true;
-            else
-                buffer.append((char) b);
+        return decode(awaitFrame());
+    }
+
+    /**
+     * Blocking, non-nullable. The bytes of the next frame without the terminator, between the position and limit of
+     * the returned buffer, which is reused and overwritten by the next read.
+     */
+    public ByteBuffer awaitFrame() throws IOException {
+        while (true) {
+            if (pendingRead != null) {
+                finishRead(join(pendingRead));
+            } else {
+                ByteBuffer found = nextBufferedFrame();
+                if (found != null)
+                    return found;
+                makeRoom();
+                finishRead(channel.read(buffer));
+            }
         }
-        String string = buffer.toString();
-        buffer = new StringBuilder();
-        return string;
     }
 
     /**
      * Nullable, blocking, timeouts.
      */
     public String awaitTimeout(long timeout) throws IOException {
-        long start = System.currentTimeMillis();
-        long end = start + timeout;
-
-        boolean terminated = false;
-        boolean timedout = false;
-        while (!terminated && !timedout) {
-            long now = System.currentTimeMillis();
-            if (in.available() > 0) {
-                int b = in.read();
-                if (b == terminator)
-                    terminated = true;
-                else
-                    buffer.append((char) b);
-            } else if (now < end) {
-                // since input stream interface does not have a read with timeout method, we will sleep and poll
-                try {
-                    Thread.sleep(Math.min(end - now, 5));
-                } catch (InterruptedException e) {
-                    throw new IOException(e);
-                }
-            } else {
-                timedout = true;
+        ByteBuffer found = awaitFrameTimeout(timeout);
+        return found == null ? null : decode(found);
+    }
+
+    /**
+     * Nullable, blocking, timeouts. As awaitFrame, but returns null if no frame is complete within timeout
+     * milliseconds.
+     */
+    public ByteBuffer awaitFrameTimeout(long timeout) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            ByteBuffer found = nextBufferedFrame();
+            if (found != null)
+                return found;
+            startRead();
+            int read;
+            try {
+                read = pendingRead.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // the read stays pending until the next call
+                return null;
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IOException(e);
             }
+            finishRead(read);
+        }
+    }
+
+    private ByteBuffer nextBufferedFrame() throws IOException {
+        if (pendingRead != null) {
+            if (!pendingRead.isDone())
+                return null;
+            finishRead(join(pendingRead));
         }
-        if (terminated) {
-            String string = buffer.toString();
-            buffer = new StringBuilder();
-            return string;
-        } else {
+        int end = scan();
+        if (end < 0)
             return null;
+        frame.limit(end).position(head);
+        head = end + 1;
+        scanned = head;
+        return frame;
+    }
+
+    // Index of the first terminator in the unread bytes, or -1
+    private int scan() {
+        int i = scanned;
+        for (; i + Long.BYTES <= tail; i += Long.BYTES) {
+            // zero bytes of x are the terminators, and the lowest one sets the lowest high bit of found
+            long x = buffer.getLong(i) ^ terminatorPattern;
+            long found = (x - ONES) & ~x & HIGHS;
+            if (found != 0)
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+        }
+        for (; i < tail; i++)
+            if (buffer.get(i) == terminator)
+                return i;
+        scanned = tail;
+        return -1;
+    }
+
+    // Read into the buffer on the filler thread, so the caller can stop waiting, unless a read is already pending
+    private void startRead() {
+        if (pendingRead != null)
+            return;
+        makeRoom();
+        if (filler == null) {
+            filler = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "terminated-string-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pendingRead = filler.submit(() -> channel.read(buffer));
+    }
+
+    // Leave the buffer ready to read into after the unread bytes
+    private void makeRoom() {
+        if (head > 0) {
+            // earlier frames are no longer needed, so move the unread bytes to the front
+            buffer.limit(tail).position(head);
+            buffer.compact();
+            tail -= head;
+            scanned -= head;
+            head = 0;
+        }
+        if (tail == buffer.capacity()) {
+            ByteBuffer old = buffer;
+            allocate(2 * old.capacity());
+            old.limit(tail).position(0);
+            buffer.put(old);
         }
+        buffer.limit(buffer.capacity()).position(tail);
+    }
+
+    private void finishRead(int read) throws IOException {
+        pendingRead = null;
+        if (read == -1)
+            throw new IOException("stream closed");
+        tail += read;
+    }
+
+    private static int join(Future<Integer> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void allocate(int capacity) {
+        buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        frame = buffer.asReadOnlyBuffer();
+    }
+
+    private static String decode(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
     }
 
     @Override
     public void close() throws Exception {
-        in.close();
+        if (filler != null)
+            filler.shutdownNow();
+        channel.close();
     }
 }
@@ -0,0 +1,165 @@
+package com.c1games.terminal.algo.io;
+
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.SpawnCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The time a game loop has for each turn. Searches check expired() as they go and stop with the best they have found
+ * once it is true, so a slow turn is cut short rather than timed out. In case they do not stop in time, the game loop
+ * driver submits the last move saved with saveFallback() at the limit, and discards the turn once it finishes.
+ * <p>
+ * The clock of a turn starts when its frame arrives, so time spent waiting for the last turn to finish counts against
+ * it. The budget adapts from the timings of earlier turns. The engine reports how long it measured our last turn to
+ * take, and the difference from how long the turn took here to submit is the overhead of sending it, which is taken
+ * off the budget. So is how late searches finished after the budget ran out, even when the fallback was submitted.
+ * <p>
+ * A turn which keeps state between turns should only change it once commit() says its own move will be submitted,
+ * since a turn which misses the limit is discarded for the fallback even though it runs to the end.
+ * <p>
+ * Until the first turn starts, the deadline never expires.
+ */
+public class TurnDeadline {
+    // used when the config has no soft limit
+    private static final int DEFAULT_SOFT_LIMIT_MILLIS = 5000;
+    // share of the soft limit which may be budgeted, and after which the fallback is submitted
+    private static final double BUDGET_SHARE = 0.8;
+    private static final double LIMIT_SHARE = 0.95;
+    // weight of each new timing in the estimates
+    private static final double SMOOTHING = 0.3;
+    // outcomes of a turn
+    private static final int OPEN = 0;
+    private static final int COMMITTED = 1;
+    private static final int MISSED = 2;
+
+    private final long maxBudgetMillis;
+    private final long softLimitMillis;
+
+    // estimates from earlier turns
+    private double overheadMillis = 0;
+    private double latenessMillis = 0;
+
+    // the current turn
+    private boolean started = false;
+    private long startNanos;
+    private long budgetNanos;
+    private long limitNanos;
+    private long lastTurnMillis = -1;
+    private volatile List<List<SpawnCommand>> fallback = List.of(List.of(), List.of());
+    // whether the turn's own move or the fallback is submitted, decided by whichever of commit and miss is first
+    private final AtomicInteger outcome = new AtomicInteger(OPEN);
+
+    /**
+     * A deadline budgeting each turn at most maxBudgetMillis, and less if needed to stay under the config's soft limit.
+     */
+    public TurnDeadline(Config config, long maxBudgetMillis) {
+        this.maxBudgetMillis = maxBudgetMillis;
+        softLimitMillis = config.timingAndReplay != null && config.timingAndReplay.waitTimeBotSoft > 0
+                ? config.timingAndReplay.waitTimeBotSoft : DEFAULT_SOFT_LIMIT_MILLIS;
+    }
+
+    /**
+     * Start a turn from its frame, which arrived at arrivalNanos by System.nanoTime(), updating the estimates with what
+     * the engine measured of the last turn.
+     */
+    void start(FrameData frame, long arrivalNanos) {
+        started = true;
+        startNanos = arrivalNanos;
+        if (lastTurnMillis >= 0 && frame.p1Stats != null) {
+            double overhead = Math.max(0, frame.p1Stats.timeTakenLastTurnMillis - lastTurnMillis);
+            // a larger overhead is taken at once, and a smaller one only gradually
+            overheadMillis = overhead > overheadMillis ? overhead
+                    : overheadMillis + SMOOTHING * (overhead - overheadMillis);
+        }
+
+        double limitMillis = LIMIT_SHARE * softLimitMillis - overheadMillis;
+        double budgetMillis = Math.min(maxBudgetMillis, BUDGET_SHARE * softLimitMillis - overheadMillis)
+                - latenessMillis;
+        limitNanos = (long) (Math.max(0, limitMillis) * 1e6);
+        budgetNanos = (long) (Math.max(0, Math.min(budgetMillis, limitMillis)) * 1e6);
+        fallback = List.of(List.of(), List.of());
+        outcome.set(OPEN);
+    }
+
+    /**
+     * Commit to submitting the move as it is, before changing state kept between turns. False if the turn missed the
+     * limit, in which case the fallback was submitted, the move is discarded, and that state must not change. Once
+     * this is true the move is submitted however long the rest of the turn takes, so it should be the last thing the
+     * turn does.
+     */
+    public boolean commit() {
+        return outcome.compareAndSet(OPEN, COMMITTED) || outcome.get() == COMMITTED;
+    }
+
+    /**
+     * Mark the turn as missed at the limit, so that the fallback is submitted in place of its move. False if the turn
+     * committed to its move first.
+     */
+    boolean miss() {
+        return outcome.compareAndSet(OPEN, MISSED);
+    }
+
+    /**
+     * Record that a move for the turn, its own or the fallback, has been submitted.
+     */
+    void submitted() {
+        lastTurnMillis = (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    /**
+     * Finish a turn whose search completed at completedNanos by System.nanoTime(), which is after it was submitted if
+     * the fallback was. This must be before the next turn starts.
+     */
+    void finish(long completedNanos) {
+        double lateness = Math.max(0, (completedNanos - startNanos - budgetNanos) / 1e6);
+        latenessMillis = lateness > latenessMillis ? lateness
+                : latenessMillis + SMOOTHING * (lateness - latenessMillis);
+    }
+
+    /**
+     * Whether the budget for this turn has run out.
+     */
+    public boolean expired() {
+        return started && System.nanoTime() - startNanos >= budgetNanos;
+    }
+
+    /**
+     * Whether a share of the budget for this turn has run out, for searches which should leave time for later ones.
+     */
+    public boolean expired(double share) {
+        return started && System.nanoTime() - startNanos >= (long) (share * budgetNanos);
+    }
+
+    // Long.MAX_VALUE before the first turn starts
+    public long remainingMillis() {
+        if (!started)
+            return Long.MAX_VALUE;
+        return Math.max(0, budgetNanos - (System.nanoTime() - startNanos)) / 1000000;
+    }
+
+    /**
+     * Milliseconds until the fallback is submitted.
+     */
+    long limitRemainingMillis() {
+        return Math.max(0, limitNanos - (System.nanoTime() - startNanos)) / 1000000;
+    }
+
+    /**
+     * Save the commands of a move as it is now, to be submitted if the turn does not finish in time.
+     */
+    public void saveFallback(GameState move) {
+        List<List<SpawnCommand>> commands = new ArrayList<>();
+        for (List<SpawnCommand> stack : move.getSpawnCommands())
+            commands.add(List.copyOf(stack));
+        fallback = List.copyOf(commands);
+    }
+
+    List<List<SpawnCommand>> fallback() {
+        return fallback;
+    }
+}
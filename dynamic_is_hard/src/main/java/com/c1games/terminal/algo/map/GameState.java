@@ -3,6 +3,7 @@ package com.c1games.terminal.algo.map;
 import com.c1games.terminal.algo.*;
 import com.c1games.terminal.algo.pathfinding.IllegalPathStartException;
 import com.c1games.terminal.algo.pathfinding.Pathfinder;
+import com.c1games.terminal.algo.units.UnitStats;
 import com.c1games.terminal.algo.units.UnitType;
 
 import java.lang.reflect.Array;
@@ -23,11 +24,18 @@ public class GameState {
     public static final int TowerUnitCategory = 0; // structures
     public static final int WalkerUnitCategory = 1; // mobile units
     public final Config config;
+    // updated in place with each frame when kept up to date by a GameStateTracker
     public final FrameData data;
 
-    //private Unit[][] walls; // nullable
-    //private Unit[][] remove;
-    public List<Unit>[][] allUnits;
+    private static final int NUM_TILES = MapBounds.BOARD_SIZE * MapBounds.BOARD_SIZE;
+
+    // units indexed by tile, which is x * BOARD_SIZE + y
+    // the structure on each tile, nullable
+    private final Unit[] structures = new Unit[NUM_TILES];
+    // the first mobile unit on each tile, nullable, with any others on the tile in the overflow list
+    private final Unit[] mobiles = new Unit[NUM_TILES];
+    private final List<Unit>[] stackedMobiles = newLists();
+    private final int[] mobileCount = new int[NUM_TILES];
 
     public List<SpawnCommand> buildStack = new ArrayList<>();
     public List<SpawnCommand> deployStack = new ArrayList<>();
@@ -36,16 +44,6 @@ public class GameState {
         this.config = config;
         this.data = data;
 
-        // create the grids
-        //walls = new Unit[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        //remove = new Unit[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        allUnits = new ArrayList[MapBounds.BOARD_SIZE][MapBounds.BOARD_SIZE];
-        for (int i = 0; i < MapBounds.BOARD_SIZE; i++) {
-            for (int j = 0; j < MapBounds.BOARD_SIZE; j++) {
-                allUnits[i][j] = new ArrayList<Unit>();
-            }
-        }
-
         // for each player
         for (PlayerId player : List.of(PlayerId.Player1, PlayerId.Player2)) {
             FrameData.PlayerUnits units;
@@ -69,7 +67,7 @@ public class GameState {
                     throw new RuntimeException("unreachable");
 
                 for (FrameData.PlayerUnit unit : list) {
-                    allUnits[unit.x][unit.y].add(new Unit(type, unit.stability, unit.unitId, player, config));
+                    addMobile(tile(unit.x, unit.y), new Unit(type, unit.stability, unit.unitId, player, config));
                 }
             }
 
@@ -86,7 +84,7 @@ public class GameState {
                     throw new RuntimeException("unreachable");
 
                 for (FrameData.PlayerUnit unit : list) {
-                    allUnits[unit.x][unit.y].add(new Unit(type, unit.stability, unit.unitId, player, config));
+                    addStructure(tile(unit.x, unit.y), new Unit(type, unit.stability, unit.unitId, player, config));
                 }
             }
 
@@ -108,25 +106,137 @@ public class GameState {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static List<Unit>[] newLists() {
+        return new List[NUM_TILES];
+    }
+
+    private static int tile(int x, int y) {
+        return x * MapBounds.BOARD_SIZE + y;
+    }
+
+    // the first structure on a tile is kept, as with the engine there should never be two
+    private void addStructure(int tile, Unit unit) {
+        if (structures[tile] == null)
+            structures[tile] = unit;
+    }
+
+    private void addMobile(int tile, Unit unit) {
+        if (mobileCount[tile] == 0) {
+            mobiles[tile] = unit;
+        } else {
+            if (stackedMobiles[tile] == null)
+                stackedMobiles[tile] = new ArrayList<>();
+            stackedMobiles[tile].add(unit);
+        }
+        mobileCount[tile]++;
+    }
+
     /**
-     * Could return empty list
+     * Remove a unit from a tile, returning whether it was there.
      */
-    public List<Unit> getInfoAt(Coords coords) {
-        List<Unit> ret = new ArrayList<>();
-        for (Unit unit : allUnits[coords.x][coords.y]) {
-            if (unit.unitInformation.unitCategory.getAsInt() == WalkerUnitCategory) {
-                ret.add(unit);
+    boolean removeUnit(int tile, Unit unit) {
+        if (structures[tile] == unit) {
+            structures[tile] = null;
+            return true;
+        }
+        if (mobiles[tile] == unit) {
+            List<Unit> stacked = stackedMobiles[tile];
+            mobiles[tile] = stacked != null && !stacked.isEmpty() ? stacked.remove(0) : null;
+        } else if (stackedMobiles[tile] == null || !stackedMobiles[tile].remove(unit)) {
+            return false;
+        }
+        mobileCount[tile]--;
+        return true;
+    }
+
+    /**
+     * Add a unit to a tile, as a structure or a mobile unit depending on its category.
+     */
+    void addUnit(int tile, Unit unit) {
+        if (unit.getStats().unitCategory == TowerUnitCategory)
+            addStructure(tile, unit);
+        else
+            addMobile(tile, unit);
+    }
+
+    /**
+     * The unit with an id on a tile. Nullable.
+     */
+    Unit findUnit(int tile, String id) {
+        if (structures[tile] != null && structures[tile].id.equals(id))
+            return structures[tile];
+        if (mobiles[tile] != null && mobiles[tile].id.equals(id))
+            return mobiles[tile];
+        if (stackedMobiles[tile] != null) {
+            for (Unit unit : stackedMobiles[tile]) {
+                if (unit.id.equals(id))
+                    return unit;
             }
         }
+        return null;
+    }
+
+    /**
+     * Put a unit in the place of another on the same tile.
+     */
+    void replaceUnit(int tile, Unit unit, Unit replacement) {
+        if (structures[tile] == unit)
+            structures[tile] = replacement;
+        else if (mobiles[tile] == unit)
+            mobiles[tile] = replacement;
+        else
+            stackedMobiles[tile].set(stackedMobiles[tile].indexOf(unit), replacement);
+    }
+
+    // Copy everything but the units of frame into data, for a GameStateTracker which has applied its events
+    void updateData(FrameData frame) {
+        data.turnInfo = frame.turnInfo;
+        data.p1Stats = frame.p1Stats;
+        data.p2Stats = frame.p2Stats;
+        data.p1Units = frame.p1Units;
+        data.p2Units = frame.p2Units;
+        data.endStats = frame.endStats;
+        data.events = frame.events();
+    }
+
+    /**
+     * Could return empty list
+     */
+    public List<Unit> getInfoAt(Coords coords) {
+        int tile = tile(coords.x, coords.y);
+        List<Unit> ret = new ArrayList<>(mobileCount[tile]);
+        if (mobiles[tile] != null)
+            ret.add(mobiles[tile]);
+        if (stackedMobiles[tile] != null)
+            ret.addAll(stackedMobiles[tile]);
+        return ret;
+    }
+
+    /**
+     * The number of mobile units at a location.
+     */
+    public int countInfoAt(Coords coords) {
+        return mobileCount[tile(coords.x, coords.y)];
+    }
+
+    /**
+     * Every unit at a location, mobile units first. Could return empty list
+     */
+    public List<Unit> getUnitsAt(Coords coords) {
+        List<Unit> ret = getInfoAt(coords);
+        Unit structure = structures[tile(coords.x, coords.y)];
+        if (structure != null)
+            ret.add(structure);
         return ret;
     }
 
     public boolean isStructure(UnitType type) {
-        return config.unitInformation.get(type.ordinal()).unitCategory.orElse(-1) == TowerUnitCategory;
+        return config.unitStats(type, false).unitCategory == TowerUnitCategory;
     }
 
     public boolean isInfo(UnitType type) {
-        return config.unitInformation.get(type.ordinal()).unitCategory.orElse(-1) == WalkerUnitCategory;
+        return config.unitStats(type, false).unitCategory == WalkerUnitCategory;
     }
 
     public boolean isStructure(int category) {
@@ -150,12 +260,14 @@ public class GameState {
      * Nullable.
      */
     public Unit getWallAt(Coords coords) {
-        for (Unit unit : allUnits[coords.x][coords.y]) {
-            if (unit.unitInformation.unitCategory.getAsInt() == TowerUnitCategory) {
-                return unit;
-            }
-        }
-        return null;
+        return structures[tile(coords.x, coords.y)];
+    }
+
+    /**
+     * Nullable. The tile is x * BOARD_SIZE + y.
+     */
+    public Unit getWallAt(int tile) {
+        return structures[tile];
     }
 
     /**
@@ -166,7 +278,8 @@ public class GameState {
      * Does not actually remove the unit.
      */
     public boolean getRemoveAt(Coords coords) {
-        return getWallAt(coords) != null && getWallAt(coords).removing;
+        Unit wall = getWallAt(coords);
+        return wall != null && wall.removing;
     }
 
     /**
@@ -175,15 +288,16 @@ public class GameState {
     public CanSpawn canSpawn(Coords coords, UnitType type, int quantity) {
         if (type != UnitType.Upgrade && numberAffordable(type, false) < quantity)
             return CanSpawn.NotEnoughResources;
-        if (type != UnitType.Remove && type != UnitType.Upgrade && getWallAt(coords) != null)
+        Unit wall = getWallAt(coords);
+        if (type != UnitType.Remove && type != UnitType.Upgrade && wall != null)
             return CanSpawn.UnitAlreadyPresent;
-        if (type == UnitType.Upgrade && getWallAt(coords) == null)
+        if (type == UnitType.Upgrade && wall == null)
             return CanSpawn.NoUnitPresent;
-        if (type == UnitType.Upgrade && getWallAt(coords).upgraded)
+        if (type == UnitType.Upgrade && wall.upgraded)
             return CanSpawn.UnitAlreadyPresent;
-        if (type == UnitType.Upgrade && numberAffordable(getWallAt(coords).type, true) < quantity)
+        if (type == UnitType.Upgrade && numberAffordable(wall.type, true) < quantity)
             return CanSpawn.NotEnoughResources;
-        if (isStructure(type) && !getInfoAt(coords).isEmpty())
+        if (isStructure(type) && countInfoAt(coords) > 0)
             return CanSpawn.UnitAlreadyPresent;
         if (coords.y >= MapBounds.BOARD_SIZE / 2)
             return CanSpawn.WrongSideOfMap;
@@ -217,16 +331,14 @@ public class GameState {
             throw new CannotSpawnException(canSpawn);
 
         // subtract the cost from the data
-        float[] cost = ((Config.RealUnitInformation) config.unitInformation.get(type.ordinal())).cost();
-        data.p1Stats.bits -= cost[1];
-        data.p1Stats.cores -= cost[0];
+        UnitStats stats = config.unitStats(type, false);
+        data.p1Stats.bits -= stats.cost2;
+        data.p1Stats.cores -= stats.cost1;
 
         // add the unit to the data
-        float[] unitHealth = new float[1];
-        unitHealth[0] = 1;
-        config.unitInformation.get(type.ordinal()).startHealth.ifPresent(s -> unitHealth[0] = (float)s);
-        Unit unit = new Unit(type, unitHealth[0], "spawned", PlayerId.Player1, config);
-        allUnits[coords.x][coords.y].add(unit);
+        float unitHealth = stats.startHealth > 0 ? (float) stats.startHealth : 1;
+        Unit unit = new Unit(type, unitHealth, Unit.SPAWNED_ID, PlayerId.Player1, config);
+        addUnit(tile(coords.x, coords.y), unit);
 
         // add it to the stack of spawn commands to send in
         SpawnCommand command = new SpawnCommand(type, coords.x, coords.y);
@@ -331,17 +443,13 @@ public class GameState {
 
     public void placeUpgrade(Coords loc) {
         Unit toUpgrade = getWallAt(loc);
-        float[] cost = toUpgrade.unitInformation.cost();
-        Config.UnitInformation upgradeInfo = toUpgrade.unitInformation.upgrade.orElse(null);
-        if (upgradeInfo != null) {
-            cost[0] = (float)upgradeInfo.cost1.orElse(cost[0]);
-            cost[1] = (float)upgradeInfo.cost2.orElse(cost[1]);
-        } else {
+        UnitStats stats = toUpgrade.getStats();
+        if (stats.upgrade == null) {
             throw new IllegalArgumentException("Cannot upgrade this way, unit not upgradeable: " + loc);
         }
 
-        data.p1Stats.bits -= cost[1];
-        data.p1Stats.cores -= cost[0];
+        data.p1Stats.bits -= stats.upgradeCost2;
+        data.p1Stats.cores -= stats.upgradeCost1;
 
         toUpgrade.upgrade();
 
@@ -359,24 +467,21 @@ public class GameState {
             throw new IllegalArgumentException("Cannot query number affordable of upgrades this way, put type of unit to upgrade and upgrade=true");
         }
 
-        float[] cost = ((Config.RealUnitInformation) config.unitInformation.get(type.ordinal())).cost();
+        UnitStats stats = config.unitStats(type, false);
+        float cores = stats.cost1;
+        float bits = stats.cost2;
         if (upgrade) {
-            Config.UnitInformation upgradeInfo = config.unitInformation.get(type.ordinal()).upgrade.orElse(null);
-            if (upgradeInfo != null) {
-                cost[0] = (float)upgradeInfo.cost1.orElse(cost[0]);
-                cost[1] = (float)upgradeInfo.cost2.orElse(cost[1]);
+            if (stats.upgrade != null) {
+                cores = stats.upgradeCost1;
+                bits = stats.upgradeCost2;
             } else {
                 throw new IllegalArgumentException("Cannot query number affordable of upgrades this way, unit not upgradeable");
             }
         }
 
-        float[] wealth = new float[] { data.p1Stats.cores, data.p1Stats.bits };
-        int[] afford = new int[] {
-                cost[0] > 0 ?  (int) (wealth[0]/cost[0]) : 99,
-                cost[1] > 0 ?  (int) (wealth[1]/cost[1]) : 99,
-        };
-
-        return Math.min(afford[0], afford[1]);
+        int affordCores = cores > 0 ? (int) (data.p1Stats.cores / cores) : 99;
+        int affordBits = bits > 0 ? (int) (data.p1Stats.bits / bits) : 99;
+        return Math.min(affordCores, affordBits);
     }
 
     /**
@@ -414,12 +519,13 @@ public class GameState {
 
         float maxRange = 0;
         float maxGetHit = 0;
-        for (Config.UnitInformation uinfo : config.unitInformation) {
-            if (uinfo.unitCategory.orElse(999) == TowerUnitCategory && uinfo.attackRange.orElse(0) > maxRange) {
-                maxRange = (float) uinfo.attackRange.getAsDouble();
+        for (UnitType type : UnitType.values()) {
+            UnitStats stats = config.unitStats(type, false);
+            if (stats.unitCategory == TowerUnitCategory && stats.attackRange > maxRange) {
+                maxRange = (float) stats.attackRange;
             }
-            if (uinfo.getHitRadius.orElse(0) > maxGetHit) {
-                maxGetHit = (float)uinfo.getHitRadius.getAsDouble();
+            if (stats.getHitRadius > maxGetHit) {
+                maxGetHit = (float) stats.getHitRadius;
             }
         }
 
@@ -430,8 +536,8 @@ public class GameState {
                 Coords c = new Coords(x,y);
                 if (MapBounds.inArena(c)) {
                     Unit unit = getWallAt(c);
-                    if (unit != null && unit.owner == PlayerId.Player2 && unit.unitInformation.attackRange.isPresent()
-                            && c.distance(coords) <= unit.unitInformation.attackRange.orElse(0) + maxGetHit) {
+                    if (unit != null && unit.owner == PlayerId.Player2 && unit.getStats().attackRange > 0
+                            && c.distance(coords) <= unit.getStats().attackRange + maxGetHit) {
                         attackers.add(unit);
                     }
                 }
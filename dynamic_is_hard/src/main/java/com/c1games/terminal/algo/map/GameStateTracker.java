@@ -0,0 +1,230 @@
+package com.c1games.terminal.algo.map;
+
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.PlayerId;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game state kept up to date through an action phase by applying the events of each frame, rather than building
+ * a new one for every frame. After applying them, a checksum of the units, their positions, and which structures are
+ * upgraded or being removed is compared with the frame's unit lists, and the game state is built again from the frame
+ * if they disagree. It is also built again for the first action frame after any other frame, and after a skipped
+ * frame, so frames must be given in order but need not all be given.
+ * <p>
+ * Health follows the damage and shield events and is not part of the checksum, so it is only corrected when the game
+ * state is next built again. Event and unit lists missing from a frame are taken as empty.
+ * <p>
+ * The game state has its own frame data, which the contents of each frame are copied into, so the frames given are
+ * never changed.
+ */
+public class GameStateTracker {
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+    // kinds of entry in the checksum besides units
+    private static final int UPGRADED = 1;
+    private static final int REMOVING = 2;
+
+    private final Config config;
+    private GameState live; // nullable
+    private int lastFrameNumber;
+    // the tile of each unit on the board by id
+    private final Map<String, Integer> tiles = new HashMap<>();
+    private long checksum;
+    // set when an event could not be applied
+    private boolean diverged;
+
+    public GameStateTracker(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * The game state for an action frame, updated from the last one if possible, or null for any other frame. The same
+     * game state is returned for each frame until it is built again, so it should only be used for random access.
+     */
+    public GameState update(FrameData frame) {
+        if (frame.turnInfo.phase != FrameData.TurnInfo.Phase.Action || frame.p1Units == null) {
+            live = null;
+            return null;
+        }
+        int frameNumber = frame.turnInfo.actionPhaseFrameNumber;
+        if (live == null || frameNumber != lastFrameNumber + 1) {
+            resync(frame);
+        } else {
+            diverged = false;
+            FrameData.Events events = frame.events();
+            if (events == null)
+                diverged = true;
+            else
+                apply(events);
+            live.updateData(frame);
+            if (diverged || checksum != checksum(frame))
+                resync(frame);
+        }
+        lastFrameNumber = frameNumber;
+        return live;
+    }
+
+    private void resync(FrameData frame) {
+        FrameData data = new FrameData();
+        data.p1Units = frame.p1Units;
+        data.p2Units = frame.p2Units;
+        live = new GameState(config, data);
+        live.updateData(frame);
+        tiles.clear();
+        for (PlayerId player : List.of(PlayerId.Player1, PlayerId.Player2)) {
+            FrameData.PlayerUnits units = player == PlayerId.Player1 ? frame.p1Units : frame.p2Units;
+            for (List<FrameData.PlayerUnit> list : Arrays.asList(units.wall, units.support, units.turret, units.scout,
+                    units.demolisher, units.interceptor)) {
+                for (FrameData.PlayerUnit unit : orEmpty(list))
+                    tiles.put(unit.unitId, unit.x * SIZE + unit.y);
+            }
+        }
+        checksum = checksum(frame);
+    }
+
+    private void apply(FrameData.Events events) {
+        for (FrameData.Events.SpawnEvent spawn : orEmpty(events.spawn))
+            spawn(spawn);
+        for (FrameData.Events.MoveEvent move : orEmpty(events.move)) {
+            int tile = tile(move.newLocation);
+            Unit unit = find(move.unitId);
+            if (unit == null || tile < 0) {
+                diverged = true;
+            } else {
+                remove(unit);
+                add(tile, unit);
+            }
+        }
+        for (FrameData.Events.ShieldEvent shield : orEmpty(events.shield))
+            changeHealth(shield.mobileUnitId, shield.shieldAmount);
+        for (FrameData.Events.DamageEvent damage : orEmpty(events.damage))
+            changeHealth(damage.damagerId, -damage.damage);
+        // damage to the targets of a self destruct is given by damage events
+        for (FrameData.Events.SelfDestructEvent selfDestruct : orEmpty(events.selfDestruct))
+            removeIfPresent(selfDestruct.explodingUnitId);
+        for (FrameData.Events.BreachEvent breach : orEmpty(events.breach))
+            removeIfPresent(breach.breacherId);
+        for (FrameData.Events.DeathEvent death : orEmpty(events.death))
+            removeIfPresent(death.unitId);
+    }
+
+    private void spawn(FrameData.Events.SpawnEvent spawn) {
+        int tile = tile(spawn.spawnLocation);
+        if (tile < 0 || spawn.spawningUnitType == null) {
+            diverged = true;
+            return;
+        }
+        if (spawn.spawningUnitType == UnitType.Remove || spawn.spawningUnitType == UnitType.Upgrade) {
+            Unit structure = live.getWallAt(tile);
+            if (structure == null) {
+                diverged = true;
+            } else if (spawn.spawningUnitType == UnitType.Remove && !structure.removing) {
+                structure.removing = true;
+                checksum ^= markerHash(REMOVING, tile);
+            } else if (spawn.spawningUnitType == UnitType.Upgrade && !structure.upgraded) {
+                structure.upgrade();
+                checksum ^= markerHash(UPGRADED, tile);
+            }
+            return;
+        }
+        double startHealth = config.unitStats(spawn.spawningUnitType, false).startHealth;
+        Unit unit = new Unit(spawn.spawningUnitType, (float) startHealth, spawn.spawningUnitId, spawn.owner, config);
+        add(tile, unit);
+    }
+
+    private void changeHealth(String id, float change) {
+        Unit unit = find(id);
+        if (unit == null) {
+            diverged = true;
+            return;
+        }
+        int tile = tiles.get(id);
+        live.replaceUnit(tile, unit, unit.withHealth(unit.health + change));
+    }
+
+    private void removeIfPresent(String id) {
+        Unit unit = find(id);
+        if (unit != null)
+            remove(unit);
+    }
+
+    private Unit find(String id) {
+        Integer tile = tiles.get(id);
+        return tile != null ? live.findUnit(tile, id) : null;
+    }
+
+    private void add(int tile, Unit unit) {
+        live.addUnit(tile, unit);
+        tiles.put(unit.id, tile);
+        checksum ^= unitHash(unit.type, tile, unit.owner, unit.id);
+    }
+
+    private void remove(Unit unit) {
+        int tile = tiles.remove(unit.id);
+        live.removeUnit(tile, unit);
+        checksum ^= unitHash(unit.type, tile, unit.owner, unit.id);
+        if (unit.removing)
+            checksum ^= markerHash(REMOVING, tile);
+        if (unit.upgraded)
+            checksum ^= markerHash(UPGRADED, tile);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    private static int tile(Coords coords) {
+        if (coords == null || coords.x < 0 || coords.x >= SIZE || coords.y < 0 || coords.y >= SIZE)
+            return -1;
+        return coords.x * SIZE + coords.y;
+    }
+
+    // xor of the hashes of every unit and marker in the frame's unit lists
+    private static long checksum(FrameData frame) {
+        long sum = 0;
+        for (PlayerId player : List.of(PlayerId.Player1, PlayerId.Player2)) {
+            FrameData.PlayerUnits units = player == PlayerId.Player1 ? frame.p1Units : frame.p2Units;
+            sum ^= checksum(units.wall, UnitType.Wall, player);
+            sum ^= checksum(units.support, UnitType.Support, player);
+            sum ^= checksum(units.turret, UnitType.Turret, player);
+            sum ^= checksum(units.scout, UnitType.Scout, player);
+            sum ^= checksum(units.demolisher, UnitType.Demolisher, player);
+            sum ^= checksum(units.interceptor, UnitType.Interceptor, player);
+            for (FrameData.PlayerUnit unit : orEmpty(units.remove))
+                sum ^= markerHash(REMOVING, unit.x * SIZE + unit.y);
+            for (FrameData.PlayerUnit unit : orEmpty(units.upgrade))
+                sum ^= markerHash(UPGRADED, unit.x * SIZE + unit.y);
+        }
+        return sum;
+    }
+
+    private static long checksum(List<FrameData.PlayerUnit> list, UnitType type, PlayerId player) {
+        long sum = 0;
+        for (FrameData.PlayerUnit unit : orEmpty(list))
+            sum ^= unitHash(type, unit.x * SIZE + unit.y, player, unit.unitId);
+        return sum;
+    }
+
+    private static long unitHash(UnitType type, int tile, PlayerId owner, String id) {
+        return mix(((long) id.hashCode() << 32) ^ ((long) type.ordinal() << 24) ^ ((long) owner.ordinal() << 16)
+                ^ tile);
+    }
+
+    private static long markerHash(int kind, int tile) {
+        return mix(((long) kind << 40) ^ tile);
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
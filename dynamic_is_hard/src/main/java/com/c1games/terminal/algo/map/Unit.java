@@ -2,30 +2,55 @@ package com.c1games.terminal.algo.map;
 
 import com.c1games.terminal.algo.Config;
 import com.c1games.terminal.algo.PlayerId;
+import com.c1games.terminal.algo.units.UnitStats;
 import com.c1games.terminal.algo.units.UnitType;
 
 /**
  * A unit which is at a certain position on the map.
  */
 public class Unit {
+    // id of units spawned during our turn, which the engine has not given ids yet
+    public static final String SPAWNED_ID = "spawned";
+
     public final UnitType type;
     public final float health;
     public final String id;
     public final PlayerId owner;
-    public final Config.UnitInformation unitInformation;
+    // shared with every unit of the same type, and not upgraded
+    private final UnitStats stats;
     public boolean removing = false;
     public boolean upgraded = false;
 
     public Unit(UnitType type, float health, String id, PlayerId owner, Config config) {
-        unitInformation = new Config.UnitInformation(config.unitInformation.get(type.ordinal()));
+        this(type, health, id, owner, config.unitStats(type, false));
+    }
+
+    private Unit(UnitType type, float health, String id, PlayerId owner, UnitStats stats) {
+        this.stats = stats;
         this.type = type;
         this.health = health;
         this.id = id;
         this.owner = owner;
     }
 
+    /**
+     * A copy of this unit with different health.
+     */
+    Unit withHealth(float health) {
+        Unit unit = new Unit(type, health, id, owner, stats);
+        unit.removing = removing;
+        unit.upgraded = upgraded;
+        return unit;
+    }
+
+    /**
+     * The stats of this unit, upgraded if it is, which are shared with every unit of the same type and upgrade.
+     */
+    public UnitStats getStats() {
+        return upgraded && stats.upgrade != null ? stats.upgrade : stats;
+    }
+
     public void upgrade() {
         upgraded = true;
-        unitInformation.upgrade();
     }
 }
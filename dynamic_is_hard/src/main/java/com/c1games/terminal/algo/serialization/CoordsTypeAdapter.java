@@ -0,0 +1,41 @@
+package com.c1games.terminal.algo.serialization;
+
+import com.c1games.terminal.algo.Coords;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * GSON type adapter for coords as [x, y] tuples, which reads and writes the fields directly rather than through
+ * reflection. Elements past the fields are skipped.
+ */
+public class CoordsTypeAdapter extends TypeAdapter<Coords> {
+    @Override
+    public void write(JsonWriter out, Coords coords) throws IOException {
+        if (coords == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        out.value(coords.x);
+        out.value(coords.y);
+        out.endArray();
+    }
+
+    @Override
+    public Coords read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        in.beginArray();
+        Coords coords = new Coords(in.nextInt(), in.nextInt());
+        while (in.hasNext())
+            in.skipValue();
+        in.endArray();
+        return coords;
+    }
+}
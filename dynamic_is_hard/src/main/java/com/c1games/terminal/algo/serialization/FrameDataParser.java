@@ -0,0 +1,812 @@
+package com.c1games.terminal.algo.serialization;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.FrameData.EndStats;
+import com.c1games.terminal.algo.FrameData.Events;
+import com.c1games.terminal.algo.FrameData.PlayerStats;
+import com.c1games.terminal.algo.FrameData.PlayerUnit;
+import com.c1games.terminal.algo.FrameData.PlayerUnitList;
+import com.c1games.terminal.algo.FrameData.PlayerUnits;
+import com.c1games.terminal.algo.FrameData.TurnInfo;
+import com.c1games.terminal.algo.PlayerId;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import com.google.gson.JsonParseException;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Streaming parser for frame data, which builds the FrameData directly from the bytes of a frame in one pass, without
+ * the intermediate JSON trees and reflection of the GSON deserializers. Values are converted the same way as by
+ * FrameData.gson, so both give the same frame.
+ * <p>
+ * The one difference is the targets of self destruct events, which GSON reads as untyped lists of numbers since the
+ * tuple deserializer only sees the erased field type, and which are read here as the coords they are declared as.
+ * <p>
+ * Frames can also be read in part, by peeking at their turn info, or by parsing them without their units or with their
+ * events only decoded once they are read.
+ * <p>
+ * A parser keeps its position in the frame being parsed, so it must not be shared between threads.
+ */
+public class FrameDataParser {
+    private static final String[] FRAME_KEYS = { "turnInfo", "p1Stats", "p2Stats", "p1Units", "p2Units", "endStats",
+            "events" };
+    private static final String[] END_STATS_KEYS = { "player1", "player2", "duration", "turns", "frames", "winner" };
+    private static final String[] PLAYER_END_STATS_KEYS = { "dynamic_resource_spent", "dynamic_resource_destroyed",
+            "dynamic_resource_spoiled", "stationary_resource_spent", "stationary_resource_left_on_board",
+            "points_scored", "crashed", "total_computation_time" };
+    private static final String[] EVENTS_KEYS = { "attack", "breach", "damage", "death", "melee", "move",
+            "selfDestruct", "shield", "spawn" };
+
+    // exact powers of ten, so a decimal with few enough digits is one correctly rounded division
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final UnitType[] UNIT_TYPES = UnitType.values();
+    private static final TurnInfo.Phase[] PHASES = TurnInfo.Phase.values();
+    private static final EndStats.Winner[] WINNERS = EndStats.Winner.values();
+    private static final PlayerId[] PLAYER_IDS = PlayerId.values();
+
+    private final UnitTypeAtlas atlas;
+    // the frame being parsed, read with absolute gets in [pos, end)
+    private ByteBuffer in;
+    private int pos;
+    private int end;
+    // the last string or number read, reused between values
+    private final StringBuilder token = new StringBuilder();
+
+    public FrameDataParser(UnitTypeAtlas atlas) {
+        this.atlas = atlas;
+    }
+
+    public FrameData parse(String json) {
+        return parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    /**
+     * Parse the frame between the position and limit of the buffer, leaving its position at the limit. Characters are
+     * read as ISO-8859-1, the same as TerminatedStringReader decodes them. Nullable, for a blank frame.
+     */
+    public FrameData parse(ByteBuffer frame) {
+        return parse(frame, true, false);
+    }
+
+    /**
+     * As parse, but the units are left out unless units is set, and if lazyEvents is set the events are copied out of
+     * the buffer and only decoded when first read through FrameData.events().
+     */
+    public FrameData parse(ByteBuffer frame, boolean units, boolean lazyEvents) {
+        begin(frame);
+        try {
+            if (peek() < 0)
+                return null;
+            FrameData data = consumeNull() ? null : frameData(units, lazyEvents);
+            if (peek() >= 0)
+                throw error("unexpected data after the frame");
+            frame.position(end);
+            return data;
+        } finally {
+            in = null;
+        }
+    }
+
+    /**
+     * The turn info of the frame in the buffer, skipping over everything else without decoding it, and without moving
+     * the position of the buffer. Nullable.
+     */
+    public TurnInfo peekTurnInfo(ByteBuffer frame) {
+        begin(frame);
+        try {
+            if (peek() != '{')
+                return null;
+            expect('{');
+            if (consume('}'))
+                return null;
+            do {
+                if (key(FRAME_KEYS) == 0)
+                    return consumeNull() ? null : turnInfo();
+                skipValue();
+            } while (consume(','));
+            return null;
+        } finally {
+            in = null;
+        }
+    }
+
+    private void begin(ByteBuffer frame) {
+        in = frame;
+        pos = frame.position();
+        end = frame.limit();
+    }
+
+    private FrameData frameData(boolean units, boolean lazyEvents) {
+        FrameData data = new FrameData();
+        expect('{');
+        if (consume('}'))
+            return data;
+        do {
+            int key = key(FRAME_KEYS);
+            if ((key == 3 || key == 4) && !units)
+                key = -1;
+            switch (key) {
+                case 0: data.turnInfo = consumeNull() ? null : turnInfo(); break;
+                case 1: data.p1Stats = consumeNull() ? null : playerStats(); break;
+                case 2: data.p2Stats = consumeNull() ? null : playerStats(); break;
+                case 3: data.p1Units = consumeNull() ? null : playerUnits(); break;
+                case 4: data.p2Units = consumeNull() ? null : playerUnits(); break;
+                case 5: data.endStats = consumeNull() ? null : endStats(); break;
+                case 6:
+                    if (consumeNull())
+                        data.events = null;
+                    else if (lazyEvents)
+                        data.deferEvents(deferredEvents());
+                    else
+                        data.events = events();
+                    break;
+                default: skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return data;
+    }
+
+    // Decoder for the events at pos, which are copied out since the buffer may be overwritten before they are read
+    private Supplier<Events> deferredEvents() {
+        int start = pos;
+        skipValue();
+        byte[] bytes = new byte[pos - start];
+        ByteBuffer source = in.duplicate();
+        source.limit(pos).position(start);
+        source.get(bytes);
+        // a parser of its own, so the events can be decoded while this one reads later frames
+        return () -> new FrameDataParser(atlas).parseEvents(ByteBuffer.wrap(bytes));
+    }
+
+    private Events parseEvents(ByteBuffer bytes) {
+        begin(bytes);
+        try {
+            return events();
+        } finally {
+            in = null;
+        }
+    }
+
+    private TurnInfo turnInfo() {
+        TurnInfo info = new TurnInfo();
+        expect('[');
+        info.phase = enumFromInt(PHASES);
+        expect(',');
+        info.turnNumber = intValue();
+        expect(',');
+        info.actionPhaseFrameNumber = intValue();
+        endTuple();
+        return info;
+    }
+
+    private PlayerStats playerStats() {
+        PlayerStats stats = new PlayerStats();
+        expect('[');
+        stats.integrity = floatValue();
+        expect(',');
+        stats.cores = floatValue();
+        expect(',');
+        stats.bits = floatValue();
+        expect(',');
+        stats.timeTakenLastTurnMillis = floatValue();
+        endTuple();
+        return stats;
+    }
+
+    private PlayerUnits playerUnits() {
+        PlayerUnits units = new PlayerUnits();
+        expect('[');
+        units.wall = playerUnitList();
+        expect(',');
+        units.support = playerUnitList();
+        expect(',');
+        units.turret = playerUnitList();
+        expect(',');
+        units.scout = playerUnitList();
+        expect(',');
+        units.demolisher = playerUnitList();
+        expect(',');
+        units.interceptor = playerUnitList();
+        expect(',');
+        units.remove = playerUnitList();
+        expect(',');
+        units.upgrade = playerUnitList();
+        endTuple();
+        return units;
+    }
+
+    private PlayerUnitList playerUnitList() {
+        if (consumeNull())
+            return null;
+        PlayerUnitList list = new PlayerUnitList(Collections.emptyList());
+        expect('[');
+        if (consume(']'))
+            return list;
+        do {
+            list.add(consumeNull() ? null : playerUnit());
+        } while (consume(','));
+        expect(']');
+        return list;
+    }
+
+    private PlayerUnit playerUnit() {
+        PlayerUnit unit = new PlayerUnit();
+        expect('[');
+        unit.x = intValue();
+        expect(',');
+        unit.y = intValue();
+        expect(',');
+        unit.stability = floatValue();
+        expect(',');
+        unit.unitId = stringValue();
+        endTuple();
+        return unit;
+    }
+
+    private EndStats endStats() {
+        EndStats stats = new EndStats();
+        expect('{');
+        if (consume('}'))
+            return stats;
+        do {
+            int key = key(END_STATS_KEYS);
+            // as with GSON, a null leaves the field at its default
+            if (key < 0 || consumeNull()) {
+                if (key < 0)
+                    skipValue();
+                continue;
+            }
+            switch (key) {
+                case 0: stats.player1 = playerEndStats(); break;
+                case 1: stats.player2 = playerEndStats(); break;
+                case 2: stats.duration = floatValue(); break;
+                case 3: stats.turns = intValue(); break;
+                case 4: stats.frames = intValue(); break;
+                default: stats.winner = enumFromInt(WINNERS);
+            }
+        } while (consume(','));
+        expect('}');
+        return stats;
+    }
+
+    private EndStats.PlayerEndStats playerEndStats() {
+        EndStats.PlayerEndStats stats = new EndStats.PlayerEndStats();
+        expect('{');
+        if (consume('}'))
+            return stats;
+        do {
+            int key = key(PLAYER_END_STATS_KEYS);
+            if (key < 0 || consumeNull()) {
+                if (key < 0)
+                    skipValue();
+                continue;
+            }
+            switch (key) {
+                case 0: stats.dynamic_resource_spent = floatValue(); break;
+                case 1: stats.dynamic_resource_destroyed = floatValue(); break;
+                case 2: stats.dynamic_resource_spoiled = floatValue(); break;
+                case 3: stats.stationary_resource_spent = floatValue(); break;
+                case 4: stats.stationary_resource_left_on_board = floatValue(); break;
+                case 5: stats.points_scored = intValue(); break;
+                case 6: stats.crashed = booleanValue(); break;
+                default: stats.total_computation_time = floatValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return stats;
+    }
+
+    private Events events() {
+        Events events = new Events();
+        expect('{');
+        if (consume('}'))
+            return events;
+        do {
+            switch (key(EVENTS_KEYS)) {
+                case 0: events.attack = list(this::attackEvent); break;
+                case 1: events.breach = list(this::breachEvent); break;
+                case 2: events.damage = list(this::damageEvent); break;
+                case 3: events.death = list(this::deathEvent); break;
+                case 4: events.melee = list(this::meleeEvent); break;
+                case 5: events.move = list(this::moveEvent); break;
+                case 6: events.selfDestruct = list(this::selfDestructEvent); break;
+                case 7: events.shield = list(this::shieldEvent); break;
+                case 8: events.spawn = list(this::spawnEvent); break;
+                default: skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return events;
+    }
+
+    // Nullable list of nullable elements, each read by element
+    private <T> List<T> list(Supplier<T> element) {
+        if (consumeNull())
+            return null;
+        List<T> list = new ArrayList<>();
+        expect('[');
+        if (consume(']'))
+            return list;
+        do {
+            list.add(consumeNull() ? null : element.get());
+        } while (consume(','));
+        expect(']');
+        return list;
+    }
+
+    private Events.AttackEvent attackEvent() {
+        Events.AttackEvent event = new Events.AttackEvent();
+        expect('[');
+        event.source = coords();
+        expect(',');
+        event.target = coords();
+        expect(',');
+        event.damage = floatValue();
+        expect(',');
+        event.attackerType = unitType();
+        expect(',');
+        event.sourceUnitId = stringValue();
+        expect(',');
+        event.targetUnitId = stringValue();
+        expect(',');
+        event.sourcePlayer = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.BreachEvent breachEvent() {
+        Events.BreachEvent event = new Events.BreachEvent();
+        expect('[');
+        event.coords = coords();
+        expect(',');
+        event.damage = floatValue();
+        expect(',');
+        event.breacherType = unitType();
+        expect(',');
+        event.breacherId = stringValue();
+        expect(',');
+        event.unitOwner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.DamageEvent damageEvent() {
+        Events.DamageEvent event = new Events.DamageEvent();
+        expect('[');
+        event.coords = coords();
+        expect(',');
+        event.damage = floatValue();
+        expect(',');
+        event.breacherType = unitType();
+        expect(',');
+        event.damagerId = stringValue();
+        expect(',');
+        event.unitOwner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.DeathEvent deathEvent() {
+        Events.DeathEvent event = new Events.DeathEvent();
+        expect('[');
+        event.coords = coords();
+        expect(',');
+        event.destroyedUnitType = unitType();
+        expect(',');
+        event.unitId = stringValue();
+        expect(',');
+        event.unitOwner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.MeleeEvent meleeEvent() {
+        Events.MeleeEvent event = new Events.MeleeEvent();
+        expect('[');
+        event.attackerLocation = coords();
+        expect(',');
+        event.victimLocation = coords();
+        expect(',');
+        event.damageDealt = floatValue();
+        expect(',');
+        event.attackerUnitType = unitType();
+        expect(',');
+        event.attackerUnitId = stringValue();
+        expect(',');
+        event.attackerPlayerId = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.MoveEvent moveEvent() {
+        Events.MoveEvent event = new Events.MoveEvent();
+        expect('[');
+        event.oldLocation = coords();
+        expect(',');
+        event.newLocation = coords();
+        expect(',');
+        event.desiredNextLocation = coords();
+        expect(',');
+        event.unitType = unitType();
+        expect(',');
+        event.unitId = stringValue();
+        expect(',');
+        event.owner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.SelfDestructEvent selfDestructEvent() {
+        Events.SelfDestructEvent event = new Events.SelfDestructEvent();
+        expect('[');
+        event.source = coords();
+        expect(',');
+        event.targets = list(this::coords);
+        expect(',');
+        event.damage = floatValue();
+        expect(',');
+        event.unitType = unitType();
+        expect(',');
+        event.explodingUnitId = stringValue();
+        expect(',');
+        event.explodingUnitOwner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.ShieldEvent shieldEvent() {
+        Events.ShieldEvent event = new Events.ShieldEvent();
+        expect('[');
+        event.supportCoords = coords();
+        expect(',');
+        event.mobileUnitCoords = coords();
+        expect(',');
+        event.shieldAmount = floatValue();
+        expect(',');
+        event.supportType = unitType();
+        expect(',');
+        event.supportUnitId = stringValue();
+        expect(',');
+        event.mobileUnitId = stringValue();
+        expect(',');
+        event.supportOwner = playerId();
+        endTuple();
+        return event;
+    }
+
+    private Events.SpawnEvent spawnEvent() {
+        Events.SpawnEvent event = new Events.SpawnEvent();
+        expect('[');
+        event.spawnLocation = coords();
+        expect(',');
+        event.spawningUnitType = unitType();
+        expect(',');
+        event.spawningUnitId = stringValue();
+        expect(',');
+        event.owner = playerId();
+        endTuple();
+        return event;
+    }
+
+    // Nullable
+    private Coords coords() {
+        if (consumeNull())
+            return null;
+        expect('[');
+        int x = intValue();
+        expect(',');
+        int y = intValue();
+        endTuple();
+        return new Coords(x, y);
+    }
+
+    // Skip the elements of a tuple after the ones which were read, and its end
+    private void endTuple() {
+        while (consume(','))
+            skipValue();
+        expect(']');
+    }
+
+    // ---- values ----
+
+    private int intValue() {
+        if (!primitive())
+            throw error("expected a number");
+        long value = integer();
+        if (value != Long.MIN_VALUE)
+            return (int) value;
+        try {
+            return new BigDecimal(token.toString()).intValue();
+        } catch (NumberFormatException e) {
+            throw error("expected a number but was " + token);
+        }
+    }
+
+    private float floatValue() {
+        if (!primitive())
+            throw error("expected a number");
+        return (float) doubleValue();
+    }
+
+    private boolean booleanValue() {
+        if (!primitive())
+            throw error("expected a boolean");
+        return Boolean.parseBoolean(token.toString());
+    }
+
+    // Nullable, the text of any primitive as GSON reads strings
+    private String stringValue() {
+        if (consumeNull())
+            return null;
+        if (!primitive())
+            throw error("expected a string");
+        return token.toString();
+    }
+
+    // Nullable, a shorthand from the config or an index
+    private UnitType unitType() {
+        if (consumeNull())
+            return null;
+        if (!primitive())
+            throw error("expected a unit type");
+        UnitType type = atlas.getUnitType(token.toString());
+        if (type != null)
+            return type;
+        int index = (int) doubleValue();
+        if (index < 0 || index >= UNIT_TYPES.length)
+            throw error("invalid unit name: " + token);
+        return UNIT_TYPES[index];
+    }
+
+    // Nullable, and null for an unknown id
+    private PlayerId playerId() {
+        if (consumeNull())
+            return null;
+        if (!primitive())
+            throw error("expected a player id");
+        if (token.length() == 1) {
+            int index = token.charAt(0) - '0';
+            if (index >= 0 && index < PLAYER_IDS.length)
+                return PLAYER_IDS[index];
+        }
+        return null;
+    }
+
+    // Nullable
+    private <E> E enumFromInt(E[] values) {
+        if (consumeNull())
+            return null;
+        int index = intValue();
+        if (index < 0 || index >= values.length)
+            throw error("no variant at index " + index);
+        return values[index];
+    }
+
+    // The number in token, converted exactly as Double.parseDouble would
+    private double doubleValue() {
+        int length = token.length();
+        int i = 0;
+        boolean negative = length > 0 && token.charAt(0) == '-';
+        if (negative)
+            i++;
+        long mantissa = 0;
+        int digits = 0;
+        boolean anyDigits = false;
+        int fractionDigits = -1;
+        for (; i < length; i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = 10 * mantissa + (c - '0');
+                anyDigits = true;
+                if (mantissa != 0)
+                    digits++;
+                if (fractionDigits >= 0)
+                    fractionDigits++;
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == length && anyDigits && digits <= MAX_EXACT_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(token.toString());
+        } catch (NumberFormatException e) {
+            throw error("expected a number but was " + token);
+        }
+    }
+
+    // The integer in token, or Long.MIN_VALUE if it is not a plain integer which fits a long
+    private long integer() {
+        int length = token.length();
+        int i = 0;
+        boolean negative = length > 0 && token.charAt(0) == '-';
+        if (negative)
+            i++;
+        if (i == length || length - i > 18)
+            return Long.MIN_VALUE;
+        long value = 0;
+        for (; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9')
+                return Long.MIN_VALUE;
+            value = 10 * value + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Read a string, number, or boolean into token, or return false at the start of an array, object, or null
+    private boolean primitive() {
+        int c = peek();
+        token.setLength(0);
+        if (c == '"') {
+            string();
+            return true;
+        }
+        if (c == '[' || c == '{' || c < 0 || isNullAhead())
+            return false;
+        while (pos < end) {
+            c = in.get(pos) & 0xFF;
+            if (c == ',' || c == ']' || c == '}' || isWhitespace(c))
+                break;
+            token.append((char) c);
+            pos++;
+        }
+        return token.length() > 0;
+    }
+
+    // Read the string starting at pos into token, decoding escapes
+    private void string() {
+        pos++;
+        while (true) {
+            if (pos >= end)
+                throw error("unterminated string");
+            char c = (char) (in.get(pos++) & 0xFF);
+            if (c == '"')
+                return;
+            if (c != '\\') {
+                token.append(c);
+                continue;
+            }
+            if (pos >= end)
+                throw error("unterminated string");
+            char escaped = (char) (in.get(pos++) & 0xFF);
+            switch (escaped) {
+                case 'b': token.append('\b'); break;
+                case 'f': token.append('\f'); break;
+                case 'n': token.append('\n'); break;
+                case 'r': token.append('\r'); break;
+                case 't': token.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > end)
+                        throw error("unterminated escape");
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(in.get(pos++) & 0xFF, 16);
+                        if (digit < 0)
+                            throw error("invalid unicode escape");
+                        code = (code << 4) | digit;
+                    }
+                    token.append((char) code);
+                    break;
+                default: token.append(escaped);
+            }
+        }
+    }
+
+    // Index of the key of the next object member in keys, or -1, having read past the colon after it
+    private int key(String[] keys) {
+        if (peek() != '"')
+            throw error("expected a key");
+        token.setLength(0);
+        string();
+        expect(':');
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i].contentEquals(token))
+                return i;
+        return -1;
+    }
+
+    // Read past the next value without decoding it
+    private void skipValue() {
+        int depth = 0;
+        do {
+            int c = peek();
+            if (c == '"') {
+                skipString();
+            } else if (c == '[' || c == '{') {
+                pos++;
+                depth++;
+            } else if ((c == ']' || c == '}') && depth > 0) {
+                pos++;
+                depth--;
+            } else if ((c == ',' || c == ':') && depth > 0) {
+                pos++;
+            } else if (c < 0) {
+                throw error("unexpected end of frame");
+            } else if (c == ']' || c == '}' || c == ',' || c == ':') {
+                throw error("expected a value");
+            } else {
+                // a number or literal, which ends at the next delimiter
+                while (pos < end) {
+                    c = in.get(pos) & 0xFF;
+                    if (c == ',' || c == ']' || c == '}' || c == ':' || isWhitespace(c))
+                        break;
+                    pos++;
+                }
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() {
+        pos++;
+        while (pos < end) {
+            byte c = in.get(pos++);
+            if (c == '"')
+                return;
+            if (c == '\\')
+                pos++;
+        }
+        throw error("unterminated string");
+    }
+
+    // ---- tokens ----
+
+    // The next character which is not whitespace, without reading past it, or -1 at the end
+    private int peek() {
+        while (pos < end) {
+            int c = in.get(pos) & 0xFF;
+            if (!isWhitespace(c))
+                return c;
+            pos++;
+        }
+        return -1;
+    }
+
+    private boolean consume(char expected) {
+        if (peek() != expected)
+            return false;
+        pos++;
+        return true;
+    }
+
+    private void expect(char expected) {
+        if (!consume(expected))
+            throw error("expected '" + expected + "'");
+    }
+
+    private boolean consumeNull() {
+        if (!isNullAhead())
+            return false;
+        pos += 4;
+        return true;
+    }
+
+    private boolean isNullAhead() {
+        return peek() == 'n' && pos + 4 <= end && in.get(pos + 1) == 'u' && in.get(pos + 2) == 'l'
+                && in.get(pos + 3) == 'l';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at offset " + (pos - in.position()) + " of the frame");
+    }
+}
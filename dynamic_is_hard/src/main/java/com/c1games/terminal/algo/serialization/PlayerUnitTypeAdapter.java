@@ -0,0 +1,54 @@
+package com.c1games.terminal.algo.serialization;
+
+import com.c1games.terminal.algo.FrameData;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * GSON type adapter for player units as [x, y, stability, unitId] tuples, which reads and writes the fields directly
+ * rather than through reflection. Elements past the fields are skipped.
+ */
+public class PlayerUnitTypeAdapter extends TypeAdapter<FrameData.PlayerUnit> {
+    @Override
+    public void write(JsonWriter out, FrameData.PlayerUnit unit) throws IOException {
+        if (unit == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        out.value(unit.x);
+        out.value(unit.y);
+        out.value(unit.stability);
+        out.value(unit.unitId);
+        out.endArray();
+    }
+
+    @Override
+    public FrameData.PlayerUnit read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        in.beginArray();
+        FrameData.PlayerUnit unit = new FrameData.PlayerUnit();
+        unit.x = in.nextInt();
+        unit.y = in.nextInt();
+        unit.stability = (float) in.nextDouble();
+        // as GSON reads strings
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL)
+            in.nextNull();
+        else if (token == JsonToken.BOOLEAN)
+            unit.unitId = Boolean.toString(in.nextBoolean());
+        else
+            unit.unitId = in.nextString();
+        while (in.hasNext())
+            in.skipValue();
+        in.endArray();
+        return unit;
+    }
+}
@@ -0,0 +1,99 @@
+package com.c1games.terminal.algo.serialization;
+
+import com.c1games.terminal.algo.map.SpawnCommand;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes lists of spawn commands as lines of JSON, each the same as SpawnCommand.gson would produce, into a buffer
+ * which is reused from turn to turn. The lines of a turn are sent together by flushing the buffer once.
+ */
+public class SpawnCommandWriter {
+    // the JSON string for each unit type, by ordinal
+    private final byte[][] shorthands;
+    private byte[] buffer = new byte[1024];
+    private int length = 0;
+
+    public SpawnCommandWriter(UnitTypeAtlas atlas) {
+        // escaped once, as GSON would escape them
+        Gson gson = new Gson();
+        UnitType[] types = UnitType.values();
+        shorthands = new byte[types.length][];
+        for (int i = 0; i < types.length; i++)
+            shorthands[i] = gson.toJson(atlas.getString(types[i])).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append the commands as one line.
+     */
+    public void write(List<SpawnCommand> commands) {
+        put('[');
+        for (int i = 0; i < commands.size(); i++) {
+            SpawnCommand command = commands.get(i);
+            if (i > 0)
+                put(',');
+            put('[');
+            byte[] shorthand = shorthands[command.type.ordinal()];
+            ensure(shorthand.length);
+            System.arraycopy(shorthand, 0, buffer, length, shorthand.length);
+            length += shorthand.length;
+            put(',');
+            putInt(command.x);
+            put(',');
+            putInt(command.y);
+            put(']');
+        }
+        put(']');
+        put('\n');
+    }
+
+    /**
+     * Write every line appended since the last flush to the channel, and empty the buffer.
+     */
+    public void flush(WritableByteChannel channel) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        length = 0;
+    }
+
+    private void put(char c) {
+        ensure(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void putInt(int value) {
+        ensure(11);
+        // digits are taken from the negative value, which also covers the minimum int
+        if (value < 0)
+            buffer[length++] = '-';
+        else
+            value = -value;
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+        // digits were written least significant first
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void ensure(int more) {
+        if (length + more > buffer.length) {
+            byte[] larger = new byte[Math.max(buffer.length * 2, length + more)];
+            System.arraycopy(buffer, 0, larger, 0, length);
+            buffer = larger;
+        }
+    }
+}
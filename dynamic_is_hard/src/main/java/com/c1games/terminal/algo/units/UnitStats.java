@@ -0,0 +1,82 @@
+package com.c1games.terminal.algo.units;
+
+import com.c1games.terminal.algo.Config;
+
+import java.util.List;
+
+/**
+ * The stats of a unit type, upgraded or not, as given by the config. These are immutable and shared by every unit of
+ * the type, so units no longer need copies of their unit information. Stats the config does not have are 0.
+ */
+public final class UnitStats {
+    public final UnitType type;
+    public final boolean upgraded;
+    // -1 if the config has none
+    public final int unitCategory;
+
+    public final double attackDamageTower;
+    public final double attackDamageWalker;
+    public final double attackRange;
+    public final double getHitRadius;
+
+    public final double shieldPerUnit;
+    public final double shieldRange;
+    public final double shieldBonusPerY;
+    public final double shieldDecay;
+
+    public final double startHealth;
+    public final double speed;
+
+    // the full cost of the unit, including the upgrade if upgraded
+    public final float cost1; // SP
+    public final float cost2; // MP
+
+    // the stats once upgraded, null if this is upgraded or cannot be
+    public final UnitStats upgrade;
+    // what an upgrade costs, the cost of the unit for any the upgrade does not give
+    public final float upgradeCost1;
+    public final float upgradeCost2;
+
+    private UnitStats(UnitType type, boolean upgraded, Config.UnitInformation info, UnitStats upgrade,
+            Config.UnitInformation upgradeInfo) {
+        this.type = type;
+        this.upgraded = upgraded;
+        unitCategory = info.unitCategory.orElse(-1);
+        attackDamageTower = info.attackDamageTower.orElse(0);
+        attackDamageWalker = info.attackDamageWalker.orElse(0);
+        attackRange = info.attackRange.orElse(0);
+        getHitRadius = info.getHitRadius.orElse(0);
+        shieldPerUnit = info.shieldPerUnit.orElse(0);
+        shieldRange = info.shieldRange.orElse(0);
+        shieldBonusPerY = info.shieldBonusPerY.orElse(0);
+        shieldDecay = info.shieldDecay.orElse(0);
+        startHealth = info.startHealth.orElse(0);
+        speed = info.speed.orElse(0);
+        float[] cost = info.cost();
+        cost1 = cost[0];
+        cost2 = cost[1];
+        this.upgrade = upgrade;
+        upgradeCost1 = upgradeInfo != null ? (float) upgradeInfo.cost1.orElse(cost1) : 0;
+        upgradeCost2 = upgradeInfo != null ? (float) upgradeInfo.cost2.orElse(cost2) : 0;
+    }
+
+    /**
+     * The stats of each unit type in the config, indexed by type ordinal then 0 or 1 for not upgraded or upgraded.
+     * Types which cannot be upgraded have upgraded stats equal to their others.
+     */
+    public static UnitStats[][] compile(List<Config.UnitInformation> unitInformation) {
+        UnitType[] types = UnitType.values();
+        UnitStats[][] stats = new UnitStats[types.length][2];
+        for (int i = 0; i < Math.min(types.length, unitInformation.size()); i++) {
+            Config.UnitInformation info = unitInformation.get(i);
+            Config.UnitInformation upgradedInfo = new Config.UnitInformation(info);
+            Config.UnitInformation upgradeInfo = info.upgrade.orElse(null);
+            if (upgradeInfo != null)
+                upgradedInfo.upgrade();
+
+            stats[i][1] = new UnitStats(types[i], true, upgradedInfo, null, null);
+            stats[i][0] = new UnitStats(types[i], false, info, upgradeInfo != null ? stats[i][1] : null, upgradeInfo);
+        }
+        return stats;
+    }
+}
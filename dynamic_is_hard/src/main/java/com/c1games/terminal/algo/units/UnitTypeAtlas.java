@@ -2,7 +2,7 @@ package com.c1games.terminal.algo.units;
 
 import com.c1games.terminal.algo.Config;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -14,7 +14,7 @@ public class UnitTypeAtlas {
     private final Map<String, UnitType> toUnitType;
 
     public UnitTypeAtlas(Config config) {
-        byUnitType = new HashMap<>();
+        byUnitType = new EnumMap<>(UnitType.class);
         byUnitType.put(UnitType.Wall, config.unitInformation.get(0).getShorthand());
         byUnitType.put(UnitType.Support, config.unitInformation.get(1).getShorthand());
         byUnitType.put(UnitType.Turret, config.unitInformation.get(2).getShorthand());
@@ -3,7 +3,7 @@ package com.c1games.terminal.pathtest;
 import com.c1games.terminal.algo.Coords;
 import com.c1games.terminal.algo.io.DefaultGameIO;
 import com.c1games.terminal.algo.map.GameState;
-import com.c1games.terminal.algo.serialization.JsonDeserializeClassFromTuple;
+import com.c1games.terminal.algo.serialization.CoordsTypeAdapter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -17,7 +17,7 @@ public class PathTest {
         while (true) {
             GameState move = io.nextMoveBuilder();
             Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(Coords.class, new JsonDeserializeClassFromTuple<>(Coords.class, () -> new Coords(0, 0)))
+                    .registerTypeAdapter(Coords.class, new CoordsTypeAdapter())
                     .create();
             Coords start = gson.fromJson(io.scanner.await(), Coords.class);
             int direction = Integer.parseInt(io.scanner.await());
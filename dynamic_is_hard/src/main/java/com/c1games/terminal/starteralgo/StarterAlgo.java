@@ -1,6 +1,7 @@
 package com.c1games.terminal.starteralgo;
 
 import com.c1games.terminal.algo.*;
+import com.c1games.terminal.algo.io.FrameSubscription;
 import com.c1games.terminal.algo.io.GameLoop;
 import com.c1games.terminal.algo.io.GameLoopDriver;
 import com.c1games.terminal.algo.map.GameState;
@@ -98,14 +99,22 @@ public class StarterAlgo implements GameLoop {
         }
     }
 
+    /**
+     * Only the events of action frames are needed, so the units in them are never decoded.
+     */
+    @Override
+    public FrameSubscription actionFrames() {
+        return FrameSubscription.everyFrame().eventsOnly();
+    }
+
     /**
      * Save process action frames. Careful there are many action frames per turn!
      */
     @Override
-    public void onActionFrame(GameIO io, GameState move) {
+    public void onActionEvents(GameIO io, FrameData frame) {
         // Save locations that the enemy scored on against us to reactively build
         // defenses
-        for (FrameData.Events.BreachEvent breach : move.data.events.breach) {
+        for (FrameData.Events.BreachEvent breach : frame.events().breach) {
             if (breach.unitOwner != PlayerId.Player1) {
                 scoredOnLocations.add(breach.coords);
             }
@@ -182,7 +191,7 @@ public class StarterAlgo implements GameLoop {
             for (Coords dmgLoc : path) {
                 List<Unit> attackers = move.getAttackers(dmgLoc);
                 for (Unit unit : attackers) {
-                    totalDamage += unit.unitInformation.attackDamageWalker.orElse(0);
+                    totalDamage += unit.getStats().attackDamageWalker;
                 }
             }
             GameIO.debug().println("Got dmg:" + totalDamage + " for " + location);
@@ -239,7 +248,7 @@ public class StarterAlgo implements GameLoop {
             for (int y : yLocations) {
                 Coords loc = new Coords(x, y);
                 if (MapBounds.inArena(loc)) {
-                    for (Unit u : move.allUnits[x][y]) {
+                    for (Unit u : move.getUnitsAt(loc)) {
                         if (units.contains(u.type)) {
                             count++;
                         }
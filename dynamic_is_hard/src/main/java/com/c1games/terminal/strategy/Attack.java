@@ -4,7 +4,8 @@ import com.c1games.terminal.algo.Config;
 import com.c1games.terminal.algo.Coords;
 import com.c1games.terminal.algo.map.GameState;
 import com.c1games.terminal.algo.map.MapBounds;
-import com.c1games.terminal.algo.action.ActionSimulator;
+import com.c1games.terminal.algo.action.SimulationBatch;
+import com.c1games.terminal.algo.action.SimulationResult;
 import com.c1games.terminal.algo.action.GameUnit;
 import com.c1games.terminal.algo.action.Structure;
 import com.c1games.terminal.algo.action.UnitInformationContainer;
@@ -56,17 +57,31 @@ public class Attack {
             return (coresDestroyed + CORES_PER_LIFE * scores) / turnsWaited;
     }
 
-    public void test(GameState move, List<StructBoard> setups, List<Coords> interceptorCoords, int sinceLastAttack) {
-        double totalValue = 0;
-        double weightSum = 0;
+    /**
+     * Add a simulation of this attack against each setup to a batch, so that many attacks can be tested together.
+     */
+    public void addTo(SimulationBatch batch, List<StructBoard> setups, List<Coords> interceptorCoords) {
         for (StructBoard board : setups) {
-            ActionSimulator sim = new ActionSimulator(unitInfos, board, move);
+            SimulationBatch.Scenario sim = batch.add(board);
             for (UnitPlacement placement : spawns)
                 sim.spawnUnits(placement.coords, placement.type, placement.quantity);
             for (Coords coords : interceptorCoords)
                 sim.spawnUnits(coords, UnitType.Interceptor, 1);
-            sim.run();
+        }
+    }
 
+    /**
+     * Score this attack from the results of its simulations, which start at index from. Returns false without scoring
+     * if any were skipped.
+     */
+    public boolean score(GameState move, SimulationResult[] results, int from, int count, int sinceLastAttack) {
+        for (int i = from; i < from + count; i++)
+            if (results[i] == null)
+                return false;
+        double totalValue = 0;
+        double weightSum = 0;
+        for (int i = from; i < from + count; i++) {
+            SimulationResult sim = results[i];
             double damage = damageValue(sim.p2CoresLost, sim.p2LivesLost, move.data.p2Stats.integrity,
                     turnsToWait + sinceLastAttack);
             totalValue += 0.1 * damage + 1;
@@ -76,6 +91,7 @@ public class Attack {
                     usedCoords.add(coords);
         }
         damagePerTurn = totalValue / weightSum;
+        return true;
     }
 
     public void send(GameState move) {
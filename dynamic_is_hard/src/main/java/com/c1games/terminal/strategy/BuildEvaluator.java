@@ -0,0 +1,204 @@
+package com.c1games.terminal.strategy;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.action.SimulationBatch;
+import com.c1games.terminal.algo.action.SimulationCache;
+import com.c1games.terminal.algo.action.SimulationResult;
+import com.c1games.terminal.algo.action.Structure;
+import com.c1games.terminal.algo.action.UnitInformationContainer;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulations of a fixed list of opponent attacks against a defense with each candidate build, kept across the
+ * iterations of a greedy build search. Only the accepted build changes the board between iterations, and a structure
+ * which is off the path of an attack and out of range of every tile on it neither changes the path nor attacks or is
+ * attacked. So after a build, only the results whose path came within range of a tile it touched are simulated again,
+ * along with candidates which use one of those tiles themselves.
+ * <p>
+ * This is exact for units which reach an edge. Units destroyed on the way were heading along a path which is not
+ * known, so a build on it which is out of range of where they went can leave their result out of date until it is
+ * next simulated.
+ */
+public class BuildEvaluator {
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+
+    private final Defense defense;
+    private final GameState move;
+    private final UnitInformationContainer unitInfos;
+    private final SimulationCache simCache;
+    private final List<UnitPlacement> attacks;
+    // range at which mobile units attack structures
+    private final int mobileRangeSquared;
+    // results by candidate build and then by attack, null where not simulated since the last change near them
+    private final Map<List<UnitPlacement>, SimulationResult[]> results = new TreeMap<>(BuildEvaluator::compare);
+    // random order of the candidates seen so far
+    private final Map<List<UnitPlacement>, Double> ranks = new TreeMap<>(BuildEvaluator::compare);
+    // the strategy's generator, so that a seeded strategy shuffles the same way each run
+    private final Random random;
+
+    public int hits = 0;
+    public int misses = 0;
+
+    public BuildEvaluator(Defense defense, GameState move, UnitInformationContainer unitInfos,
+            SimulationCache simCache, List<UnitPlacement> attacks, Random random) {
+        this.defense = defense;
+        this.move = move;
+        this.unitInfos = unitInfos;
+        this.simCache = simCache;
+        this.attacks = List.copyOf(attacks);
+        this.random = random;
+        int range = 0;
+        for (UnitType type : List.of(UnitType.Scout, UnitType.Demolisher, UnitType.Interceptor))
+            range = Math.max(range, unitInfos.attackRangeSquared[type.ordinal()][0]);
+        mobileRangeSquared = range;
+    }
+
+    /**
+     * Results of every attack against the defense with each build, in the order the attacks were given, where the
+     * empty build is the defense as it is and records its traffic. Those not kept from before are simulated together,
+     * and are left null if stop was true before they started.
+     */
+    public SimulationResult[][] results(List<List<UnitPlacement>> builds, BooleanSupplier stop) {
+        List<Integer> all = new ArrayList<>();
+        for (int a = 0; a < attacks.size(); a++)
+            all.add(a);
+        return results(builds, all, stop);
+    }
+
+    /**
+     * Results of only some of the attacks, by index, against the defense with each build. The others are null unless
+     * they were kept from before.
+     */
+    public SimulationResult[][] results(List<List<UnitPlacement>> builds, List<Integer> attackIndices,
+            BooleanSupplier stop) {
+        SimulationResult[][] kept = new SimulationResult[builds.size()][];
+        SimulationBatch batch = new SimulationBatch(unitInfos, move, simCache);
+        List<int[]> simulated = new ArrayList<>();
+        for (int b = 0; b < builds.size(); b++) {
+            List<UnitPlacement> build = builds.get(b);
+            kept[b] = results.computeIfAbsent(List.copyOf(build), key -> new SimulationResult[attacks.size()]);
+            for (int a : attackIndices) {
+                if (kept[b][a] != null) {
+                    hits++;
+                    continue;
+                }
+                misses++;
+                UnitPlacement attack = attacks.get(a);
+                SimulationBatch.Scenario sim = batch.add(defense.board).spawnUnits(attack.coords, attack.type,
+                        attack.quantity);
+                for (UnitPlacement placement : build)
+                    sim.spawnUnit(placement.coords, placement.type);
+                // the defense as it is also gives the traffic candidates are ranked by
+                if (build.isEmpty())
+                    sim.recordTraffic();
+                simulated.add(new int[] { b, a });
+            }
+        }
+        SimulationResult[] run = batch.run(stop);
+        for (int i = 0; i < run.length; i++)
+            kept[simulated.get(i)[0]][simulated.get(i)[1]] = run[i];
+
+        SimulationResult[][] ret = new SimulationResult[builds.size()][];
+        for (int b = 0; b < builds.size(); b++)
+            ret[b] = kept[b].clone();
+        return ret;
+    }
+
+    /**
+     * Shuffle candidates, keeping the order of those seen before, so that a search looking at the first few evaluates
+     * mostly the same ones in each iteration and their results can be kept.
+     */
+    public void shuffle(List<List<UnitPlacement>> builds) {
+        for (List<UnitPlacement> build : builds)
+            ranks.computeIfAbsent(List.copyOf(build), key -> random.nextDouble());
+        builds.sort(Comparator.comparingDouble(build -> ranks.get(build)));
+    }
+
+    /**
+     * Drop the results a build may have changed, once it is part of the defense's board.
+     */
+    public void built(List<UnitPlacement> build) {
+        // tiles the build touched, and tiles in range of them
+        boolean[] touched = new boolean[SIZE * SIZE];
+        boolean[] inRange = new boolean[SIZE * SIZE];
+        for (UnitPlacement placement : build) {
+            Coords coords = placement.coords;
+            touched[coords.x * SIZE + coords.y] = true;
+            int rangeSquared = rangeSquared(defense.board.getLocation(coords));
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    int dx = x - coords.x;
+                    int dy = y - coords.y;
+                    if (dx * dx + dy * dy <= rangeSquared)
+                        inRange[x * SIZE + y] = true;
+                }
+            }
+        }
+
+        for (Iterator<Map.Entry<List<UnitPlacement>, SimulationResult[]>> itr = results.entrySet().iterator(); itr
+                .hasNext();) {
+            Map.Entry<List<UnitPlacement>, SimulationResult[]> entry = itr.next();
+            if (uses(entry.getKey(), touched)) {
+                itr.remove();
+                continue;
+            }
+            SimulationResult[] sims = entry.getValue();
+            for (int a = 0; a < sims.length; a++)
+                if (sims[a] != null && crosses(sims[a].unitPath, inRange))
+                    sims[a] = null;
+        }
+    }
+
+    // range at which a structure and mobile units can affect each other
+    private int rangeSquared(Structure struct) {
+        if (struct == null)
+            return mobileRangeSquared;
+        int upgraded = struct.upgraded ? 1 : 0;
+        return Math.max(mobileRangeSquared, Math.max(unitInfos.attackRangeSquared[struct.type.ordinal()][upgraded],
+                unitInfos.shieldRangeSquared[struct.type.ordinal()][upgraded]));
+    }
+
+    private static boolean uses(List<UnitPlacement> build, boolean[] tiles) {
+        for (UnitPlacement placement : build)
+            if (tiles[placement.coords.x * SIZE + placement.coords.y])
+                return true;
+        return false;
+    }
+
+    // the path leaves out the tile units moved to in the frame they died, which is next to the last one
+    private static boolean crosses(Coords[] path, boolean[] tiles) {
+        for (Coords coords : path)
+            if (tiles[coords.x * SIZE + coords.y])
+                return true;
+        if (path.length == 0)
+            return false;
+        Coords last = path[path.length - 1];
+        for (int[] step : new int[][] { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } }) {
+            int x = last.x + step[0];
+            int y = last.y + step[1];
+            if (x >= 0 && x < SIZE && y >= 0 && y < SIZE && tiles[x * SIZE + y])
+                return true;
+        }
+        return false;
+    }
+
+    private static int compare(List<UnitPlacement> a, List<UnitPlacement> b) {
+        for (int i = 0; i < a.size() && i < b.size(); i++) {
+            int cmp = a.get(i).compareTo(b.get(i));
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
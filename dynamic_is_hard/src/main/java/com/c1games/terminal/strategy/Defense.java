@@ -2,7 +2,9 @@ package com.c1games.terminal.strategy;
 
 import com.c1games.terminal.algo.Coords;
 import com.c1games.terminal.algo.PlayerId;
-import com.c1games.terminal.algo.action.ActionSimulator;
+import com.c1games.terminal.algo.action.SimulationBatch;
+import com.c1games.terminal.algo.action.SimulationCache;
+import com.c1games.terminal.algo.action.SimulationResult;
 import com.c1games.terminal.algo.action.StructBoard;
 import com.c1games.terminal.algo.action.Structure;
 import com.c1games.terminal.algo.action.UnitInformationContainer;
@@ -37,12 +39,14 @@ public class Defense {
 
     private final GameState move;
     private final UnitInformationContainer unitInfos;
+    private final SimulationCache simCache;
     private Set<Coords> noBuildZone;
 
-    public Defense(StructBoard board, GameState move, UnitInformationContainer unitInfos) {
+    public Defense(StructBoard board, GameState move, UnitInformationContainer unitInfos, SimulationCache simCache) {
         this.board = board;
         this.move = move;
         this.unitInfos = unitInfos;
+        this.simCache = simCache;
     }
 
     public void remove(Coords coords) {
@@ -98,8 +102,8 @@ public class Defense {
 
     // from each edge location using all bits on one unit type
     public List<UnitPlacement> opponentAttacks(double bits) {
-        double scoutCost = unitInfos.getInfo(UnitType.Scout).cost2.getAsDouble();
-        double demolisherCost = unitInfos.getInfo(UnitType.Demolisher).cost2.getAsDouble();
+        double scoutCost = unitInfos.cost2[UnitType.Scout.ordinal()][0];
+        double demolisherCost = unitInfos.cost2[UnitType.Demolisher.ordinal()][0];
 
         List<Coords> edgeCoords = new ArrayList<>();
         for (Coords coords : MapBounds.EDGE_LISTS[MapBounds.EDGE_TOP_LEFT])
@@ -126,14 +130,17 @@ public class Defense {
     // or building a wall or turrent along the path of units that score
     public List<List<UnitPlacement>> buildOptions(List<UnitPlacement> testAttacks, double cores,
             Set<Coords> noBuildZone) {
+        SimulationBatch batch = new SimulationBatch(unitInfos, move, simCache);
+        for (UnitPlacement placement : testAttacks)
+            batch.add(board).spawnUnits(placement.coords, placement.type, placement.quantity);
+        return buildOptions(batch.run(), cores, noBuildZone);
+    }
+
+    // from the results of test attacks already simulated against the board
+    public List<List<UnitPlacement>> buildOptions(SimulationResult[] sims, double cores, Set<Coords> noBuildZone) {
         this.noBuildZone = noBuildZone;
         Set<Coords> locations = new TreeSet<>();
-        for (UnitPlacement placement : testAttacks) {
-
-            ActionSimulator sim = new ActionSimulator(unitInfos, board, move);
-            sim.spawnUnits(placement.coords, placement.type, placement.quantity);
-            sim.run();
-
+        for (SimulationResult sim : sims) {
             for (Coords coords : sim.p1LostStructCoords) {
                 Coords above = new Coords(coords.x, coords.y + 1);
                 Coords left = new Coords(coords.x - 1, coords.y);
@@ -282,19 +289,40 @@ public class Defense {
     }
 
     public List<Double> attackDamages(List<UnitPlacement> attacks, List<Double> turns, List<UnitPlacement> edit) {
-        List<Double> damages = new ArrayList<>();
-        for (int i = 0; i < attacks.size(); i++) {
-            UnitPlacement attack = attacks.get(i);
-            ActionSimulator sim = new ActionSimulator(unitInfos, board, move);
-            sim.spawnUnits(attack.coords, attack.type, attack.quantity);
+        SimulationBatch batch = new SimulationBatch(unitInfos, move, simCache);
+        for (UnitPlacement attack : attacks) {
+            SimulationBatch.Scenario sim = batch.add(board).spawnUnits(attack.coords, attack.type, attack.quantity);
             if (edit != null)
                 for (UnitPlacement placement : edit)
                     sim.spawnUnit(placement.coords, placement.type);
-            sim.run();
-            damages.add(damageScore(sim.p1CoresLost, sim.p1LivesLost) / turns.get(i));
         }
+        double[] scores = batch.run(sim -> damageScore(sim.p1CoresLost, sim.p1LivesLost));
+        List<Double> damages = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++)
+            damages.add(scores[i] / turns.get(i));
+        return damages;
+    }
+
+    // results of the attacks against the board, recording what each structure did in them
+    public SimulationResult[] attributedAttacks(List<UnitPlacement> attacks) {
+        SimulationBatch batch = new SimulationBatch(unitInfos, move, simCache);
+        for (UnitPlacement attack : attacks)
+            batch.add(board).spawnUnits(attack.coords, attack.type, attack.quantity).attribute();
+        return batch.run();
+    }
+
+    // from the results of attacks already simulated, starting at index from
+    public List<Double> attackDamages(SimulationResult[] sims, int from, List<Double> turns) {
+        List<Double> damages = new ArrayList<>();
+        for (int i = 0; i < turns.size(); i++)
+            damages.add(attackDamage(sims[from + i], turns.get(i)));
         return damages;
     }
+
+    // from the result of one attack already simulated
+    public double attackDamage(SimulationResult sim, double turns) {
+        return damageScore(sim.p1CoresLost, sim.p1LivesLost) / turns;
+    }
 }
 
 // if (spawnable == CanSpawn.NotEnoughResources) {
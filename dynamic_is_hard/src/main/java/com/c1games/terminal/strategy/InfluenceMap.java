@@ -0,0 +1,141 @@
+package com.c1games.terminal.strategy;
+
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.action.SimulationResult;
+import com.c1games.terminal.algo.action.StructBoard;
+import com.c1games.terminal.algo.action.Structure;
+import com.c1games.terminal.algo.action.Traffic;
+import com.c1games.terminal.algo.action.UnitInformationContainer;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.units.UnitType;
+
+import java.util.List;
+
+/**
+ * Where the opponent's test attacks went through our defense, from one simulation of each recording its traffic, used
+ * to estimate which candidate builds are worth simulating.
+ * <p>
+ * For each attack, a build's turrets are worth a share of its damage in proportion to the damage they would deal on
+ * its path against the health of its units, its walls a share of it if they stand on the path or next to it, and an
+ * upgrade all of it if the attack destroyed the structure. These are rough, fit to rank builds against each other in
+ * random games rather than to predict damage, and only decide which builds are simulated.
+ */
+public class InfluenceMap {
+    private static final int SIZE = MapBounds.BOARD_SIZE;
+    private static final int TURRET = UnitType.Turret.ordinal();
+    // shares of an attack's damage: per unit of its health a new turret deals in damage on its path, for a wall on its
+    // path or next to it, and for upgrading a structure it destroyed
+    private static final double TURRET_SHARE = 0.5;
+    private static final double WALL_SHARE = 0.3;
+    private static final double ADJACENT_WALL_SHARE = 0.1;
+    private static final double LOST_UPGRADE_SHARE = 1;
+
+    private final StructBoard board;
+    private final UnitInformationContainer unitInfos;
+    private final Traffic[] traffic;
+    // damage of each attack, by how much it matters
+    private final double[] threats;
+    // health of each attack's units when they entered
+    private final double[] health;
+    // by attack and then by tile, whether the attack destroyed the structure there
+    private final boolean[][] lost;
+
+    /**
+     * An influence map from results recording traffic, with the damage each attack does scaled by how much it matters.
+     */
+    public InfluenceMap(StructBoard board, UnitInformationContainer unitInfos, SimulationResult[] sims,
+            List<Double> threats) {
+        this.board = board;
+        this.unitInfos = unitInfos;
+        traffic = new Traffic[sims.length];
+        this.threats = new double[sims.length];
+        health = new double[sims.length];
+        lost = new boolean[sims.length][SIZE * SIZE];
+        for (int a = 0; a < sims.length; a++) {
+            traffic[a] = sims[a].traffic;
+            this.threats[a] = threats.get(a);
+            // the health entering tiles only falls along the way, so the most of it is at the start
+            for (double entering : traffic[a].health)
+                health[a] = Math.max(health[a], entering);
+            for (Coords coords : sims[a].p1LostStructCoords)
+                lost[a][coords.x * SIZE + coords.y] = true;
+        }
+    }
+
+    /**
+     * Estimated damage a build prevents.
+     */
+    public double score(List<UnitPlacement> build) {
+        double score = 0;
+        for (int a = 0; a < traffic.length; a++) {
+            if (threats[a] == 0)
+                continue;
+            // damage the build's turrets deal to the attack, and the share of the attack its other structures stop
+            double damage = 0;
+            double blocked = 0;
+            for (int i = 0; i < build.size(); i++) {
+                UnitPlacement placement = build.get(i);
+                Coords coords = placement.coords;
+                int tile = coords.x * SIZE + coords.y;
+                if (placement.type == UnitType.Turret) {
+                    damage += turretDamage(traffic[a], coords, -1, 0);
+                    blocked += wallShare(traffic[a], coords);
+                } else if (placement.type == UnitType.Wall) {
+                    blocked += wallShare(traffic[a], coords);
+                } else if (placement.type == UnitType.Upgrade) {
+                    UnitType type = typeAt(build, i);
+                    if (type == UnitType.Turret)
+                        damage += turretDamage(traffic[a], coords, 0, 1);
+                    if (lost[a][tile])
+                        blocked += LOST_UPGRADE_SHARE;
+                }
+            }
+            if (health[a] > 0)
+                score += threats[a] * Math.min(1, TURRET_SHARE * damage / health[a] + blocked);
+        }
+        return score;
+    }
+
+    // damage added on a path by a turret at coords going from one level to another, where -1 is no turret
+    private double turretDamage(Traffic traffic, Coords coords, int from, int to) {
+        int rangeSquared = unitInfos.attackRangeSquared[TURRET][to];
+        int fromRangeSquared = from < 0 ? -1 : unitInfos.attackRangeSquared[TURRET][from];
+        double fromDamage = from < 0 ? 0 : unitInfos.attackDamageWalker[TURRET][from];
+        int reach = (int) Math.sqrt(rangeSquared);
+        double damage = 0;
+        for (int x = Math.max(0, coords.x - reach); x <= Math.min(SIZE - 1, coords.x + reach); x++) {
+            for (int y = Math.max(0, coords.y - reach); y <= Math.min(SIZE - 1, coords.y + reach); y++) {
+                int distance = (x - coords.x) * (x - coords.x) + (y - coords.y) * (y - coords.y);
+                if (distance <= rangeSquared)
+                    damage += traffic.frames[x * SIZE + y] * (unitInfos.attackDamageWalker[TURRET][to]
+                            - (distance <= fromRangeSquared ? fromDamage : 0));
+            }
+        }
+        return damage;
+    }
+
+    // share of an attack a wall at coords stands in the way of
+    private double wallShare(Traffic traffic, Coords coords) {
+        if (traffic.frames[coords.x * SIZE + coords.y] > 0)
+            return WALL_SHARE;
+        for (int n = 0; n < 4; n++) {
+            int x = coords.x + (n == 0 ? 1 : n == 1 ? -1 : 0);
+            int y = coords.y + (n == 2 ? 1 : n == 3 ? -1 : 0);
+            if (x >= 0 && y >= 0 && x < SIZE && y < SIZE && traffic.frames[x * SIZE + y] > 0)
+                return ADJACENT_WALL_SHARE;
+        }
+        return 0;
+    }
+
+    // type of the structure an upgrade in a build applies to, null if there is none
+    private UnitType typeAt(List<UnitPlacement> build, int index) {
+        Coords coords = build.get(index).coords;
+        Structure struct = board.getLocation(coords);
+        if (struct != null)
+            return struct.type;
+        for (int i = 0; i < index; i++)
+            if (build.get(i).coords.equals(coords) && build.get(i).type != UnitType.Upgrade)
+                return build.get(i).type;
+        return null;
+    }
+}
@@ -5,8 +5,10 @@ import com.c1games.terminal.algo.PlayerId;
 import com.c1games.terminal.algo.Config;
 import com.c1games.terminal.algo.GameIO;
 import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.io.FrameSubscription;
 import com.c1games.terminal.algo.io.GameLoop;
 import com.c1games.terminal.algo.io.GameLoopDriver;
+import com.c1games.terminal.algo.io.TurnDeadline;
 import com.c1games.terminal.algo.map.GameState;
 import com.c1games.terminal.algo.map.MapBounds;
 import com.c1games.terminal.algo.map.Unit;
@@ -15,12 +17,16 @@ import com.c1games.terminal.algo.units.UnitType;
 import com.c1games.terminal.algo.action.ActionSimulator;
 import com.c1games.terminal.algo.action.GameUnit;
 import com.c1games.terminal.algo.action.MobileUnits;
+import com.c1games.terminal.algo.action.SimulationBatch;
+import com.c1games.terminal.algo.action.SimulationCache;
+import com.c1games.terminal.algo.action.SimulationResult;
 import com.c1games.terminal.algo.action.StructBoard;
 import com.c1games.terminal.algo.action.Structure;
 import com.c1games.terminal.algo.action.UnitInformationContainer;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Deque;
@@ -51,15 +57,30 @@ public class StrategyMain implements GameLoop {
     private static final double MIN_DAMAGE_REDUCT_TO_BUILD = 0.1;
     private static final double MAX_DAMAGE_REDUCT_TO_REMOVE = 0.01;
     private static final int MAX_BUILDS_PER_TURN = 10;
-    private static final int MAX_BUILD_OPTIONS = 20;
+    // of those ranked best by the influence map
+    private static final int MAX_BUILD_OPTIONS = 12;
+    // simulations each build search iteration and each attack decision may spend, trading quality for time
+    private static final int BUILD_SIM_BUDGET = 384;
+    private static final int ATTACK_SIM_BUDGET = 1600;
 
     private static final int DEFENSE_LOOKAHEAD = 4;
     private static final double DEFENSE_WEIGHT_CURRENT = 0.67;
     private static final int ATTACK_LOOKAHEAD = 5;
     private static final int ATTACK_SPAWN_LOCATIONS = 12;
 
+    private static final int SIM_CACHE_SIZE = 4096;
+
+    private static final long TURN_BUDGET_MILLIS = 6000;
+    // shares of the turn's budget after which removals and builds stop, leaving the rest for attacks
+    private static final double REMOVAL_TIME_SHARE = 0.2;
+    private static final double BUILD_TIME_SHARE = 0.6;
+
     private static final List<UnitPlacement> basicStructures = new ArrayList<>();
-    private static final List<Coords> supportCoords = new ArrayList<>();
+    // never changed, so it is safe to read from any thread
+    private static final List<Coords> supportCoords = List.of(new Coords(13, 11), new Coords(14, 11),
+            new Coords(12, 11), new Coords(15, 11), new Coords(13, 10), new Coords(14, 10), new Coords(12, 10),
+            new Coords(15, 10), new Coords(13, 9), new Coords(14, 9), new Coords(12, 9), new Coords(15, 9),
+            new Coords(13, 8), new Coords(14, 8), new Coords(12, 8), new Coords(15, 8));
     private static final List<List<Coords>> attackPathings = new ArrayList<>();
 
     private Map<UnitPlacement, Double> p2StructHistory = new TreeMap<>();
@@ -68,9 +89,13 @@ public class StrategyMain implements GameLoop {
     private Attack savedAttack;
     private int turnLastAttacked = -1;
 
-    private static final Random random = new Random();
+    // only used on the turn's thread, and each opponent prediction has its own generator seeded from it
+    private final Random random = new Random();
 
     private UnitInformationContainer unitInfos;
+    // results are only reused within a turn
+    private final SimulationCache simCache = new SimulationCache(SIM_CACHE_SIZE);
+    private TurnDeadline deadline;
 
     @Override
     public void initialize(GameIO io, Config config) {
@@ -78,6 +103,7 @@ public class StrategyMain implements GameLoop {
         GameIO.debug().println("Beginning Algo");
 
         unitInfos = new UnitInformationContainer(config);
+        deadline = new TurnDeadline(config, TURN_BUDGET_MILLIS);
 
         basicStructures.add(new UnitPlacement(new Coords(3, 12), UnitType.Turret));
         basicStructures.add(new UnitPlacement(new Coords(24, 12), UnitType.Turret));
@@ -87,23 +113,6 @@ public class StrategyMain implements GameLoop {
         basicStructures.add(new UnitPlacement(new Coords(8, 12), UnitType.Turret));
         basicStructures.add(new UnitPlacement(new Coords(20, 12), UnitType.Turret));
 
-        supportCoords.add(new Coords(13, 11));
-        supportCoords.add(new Coords(14, 11));
-        supportCoords.add(new Coords(12, 11));
-        supportCoords.add(new Coords(15, 11));
-        supportCoords.add(new Coords(13, 10));
-        supportCoords.add(new Coords(14, 10));
-        supportCoords.add(new Coords(12, 10));
-        supportCoords.add(new Coords(15, 10));
-        supportCoords.add(new Coords(13, 9));
-        supportCoords.add(new Coords(14, 9));
-        supportCoords.add(new Coords(12, 9));
-        supportCoords.add(new Coords(15, 9));
-        supportCoords.add(new Coords(13, 8));
-        supportCoords.add(new Coords(14, 8));
-        supportCoords.add(new Coords(12, 8));
-        supportCoords.add(new Coords(15, 8));
-
         List<Coords> leftCorner = new ArrayList<>();
         leftCorner.add(new Coords(1, 13));
         leftCorner.add(new Coords(1, 12));
@@ -142,11 +151,13 @@ public class StrategyMain implements GameLoop {
     @Override
     public void onTurn(GameIO io, GameState move) {
         GameIO.debug().println("Performing turn " + move.data.turnInfo.turnNumber);
+        simCache.clear();
 
         if (move.data.turnInfo.turnNumber == 0) {
             for (UnitPlacement placement : basicStructures) {
                 move.attemptSpawn(placement.coords, placement.type);
             }
+            deadline.saveFallback(move);
         }
 
         final long time0 = System.currentTimeMillis();
@@ -155,22 +166,42 @@ public class StrategyMain implements GameLoop {
         for (Coords coords : toRemove) {
             move.attemptRemoveStructure(coords);
         }
+        deadline.saveFallback(move);
 
         final long time1 = System.currentTimeMillis();
         GameIO.debug().println("Removals: " + ((time1 - time0) / 10) / 100.0);
 
-        Defense defense = new Defense(new StructBoard(move, unitInfos, false), move, unitInfos);
+        Defense defense = new Defense(new StructBoard(move, unitInfos, false), move, unitInfos, simCache);
         List<UnitPlacement> currentAttacks = defense.opponentAttacks(move.data.p2Stats.bits);
         double turns = bitsToTurns(move.data.p2Stats.bits, move.data.turnInfo.turnNumber);
         List<Double> weights = defense.attackDamages(currentAttacks, turns, null);
-        List<UnitPlacement> build = findBestBuild(move, defense, currentAttacks, weights);
+        // attacks in later turns are chosen once, so that their results can be kept between builds
+        List<UnitPlacement> nextAttacks = new ArrayList<>();
+        List<Double> waitTurns = new ArrayList<>();
+        for (int t = 1; t < DEFENSE_LOOKAHEAD; t++) {
+            double bits = nextBits(move.data.p2Stats.bits, move.data.turnInfo.turnNumber, t);
+            for (UnitPlacement attack : defense.opponentAttacks(bits)) {
+                nextAttacks.add(attack);
+                waitTurns.add(turns + t);
+            }
+        }
+        List<UnitPlacement> allAttacks = new ArrayList<>(currentAttacks);
+        allAttacks.addAll(nextAttacks);
+        BuildEvaluator evaluator = new BuildEvaluator(defense, move, unitInfos, simCache, allAttacks, random);
+
+        List<UnitPlacement> build = findBestBuild(move, defense, evaluator, currentAttacks, weights, waitTurns);
         for (int t = 0; build != null && Defense.attemptBuild(move, build) && t < MAX_BUILDS_PER_TURN; t++) {
             defense.buildMultiple(build);
-            build = findBestBuild(move, defense, currentAttacks, weights);
+            evaluator.built(build);
+            deadline.saveFallback(move);
+            if (deadline.expired(BUILD_TIME_SHARE))
+                break;
+            build = findBestBuild(move, defense, evaluator, currentAttacks, weights, waitTurns);
         }
 
         final long time2 = System.currentTimeMillis();
         GameIO.debug().println("Decide builds: " + ((time2 - time1) / 10) / 100.0);
+        GameIO.debug().println("Build results kept: " + evaluator.hits + ", simulated: " + evaluator.misses);
 
         final long time3 = System.currentTimeMillis();
 
@@ -183,38 +214,101 @@ public class StrategyMain implements GameLoop {
         }
         int buildableSupports = (int) (move.data.p1Stats.cores / 8);
 
-        Attack bestAttack = new Attack(unitInfos, 1);
-        for (int t = 0; t < ATTACK_LOOKAHEAD; t++) {
+        // candidate attacks for every turn ahead are simulated together, first against one setup each and then those
+        // with the best scores so far against more, within the budget
+        List<Attack> candidates = new ArrayList<>();
+        List<List<StructBoard>> candidateSetups = new ArrayList<>();
+        int maxSetups = 0;
+        for (int t = 0; t < ATTACK_LOOKAHEAD && !deadline.expired(); t++) {
+            Random predictionRandom = new Random(random.nextLong());
             // rebuild opponent's missing structures
             List<StructBoard> setups = opponentBasePredictions(new StructBoard(move, unitInfos, t >= 2),
-                    move.data.p2Stats.cores + t * move.config.resources.coresPerRound, OPPONENT_TEST_BASES);
+                    move.data.p2Stats.cores + t * move.config.resources.coresPerRound, OPPONENT_TEST_BASES,
+                    predictionRandom);
+            maxSetups = Math.max(maxSetups, setups.size());
 
             int maxSupports = (move.data.turnInfo.turnNumber + t) / TURNS_PER_SUPPORT;
             // System.err.println("max supports: " + maxSupports + ", built supports: " +
             // numSupports + ", affordable: "
             // + buildableSupports);
-            Attack attack = findBestAttack(move, setups, p2LastSentInterceptors,
-                    Math.min(maxSupports - numSupports, buildableSupports), t);
-            if (attack.damagePerTurn > bestAttack.damagePerTurn)
-                bestAttack = attack;
+            for (Attack attack : attackCandidates(move, Math.min(maxSupports - numSupports, buildableSupports), t,
+                    predictionRandom)) {
+                candidates.add(attack);
+                candidateSetups.add(setups);
+            }
         }
+        int sinceLastAttack = move.data.turnInfo.turnNumber - turnLastAttacked;
+        SimulationResult[][] results = new SimulationResult[candidates.size()][];
+        for (int c = 0; c < candidates.size(); c++)
+            results[c] = new SimulationResult[candidateSetups.get(c).size()];
+        int[] simulated = { 0 };
+        SuccessiveHalving.Evaluation evaluation = (survivors, from, to) -> {
+            SimulationBatch batch = new SimulationBatch(unitInfos, move, simCache);
+            for (int c : survivors) {
+                List<StructBoard> setups = candidateSetups.get(c);
+                candidates.get(c).addTo(batch, setups.subList(Math.min(from, setups.size()),
+                        Math.min(to, setups.size())), p2LastSentInterceptors);
+            }
+            // the best attack so far is taken when out of time
+            SimulationResult[] run = batch.run(() -> deadline.expired());
+            simulated[0] += run.length;
+            double[] scores = new double[survivors.size()];
+            for (int i = 0, next = 0; i < survivors.size(); i++) {
+                int c = survivors.get(i);
+                int end = Math.min(to, results[c].length);
+                for (int s = Math.min(from, end); s < end; s++)
+                    results[c][s] = run[next++];
+                Attack attack = candidates.get(c);
+                scores[i] = attack.score(move, results[c], 0, end, sinceLastAttack) ? attack.damagePerTurn
+                        : Double.NaN;
+            }
+            return scores;
+        };
+        int best = SuccessiveHalving.best(candidates.size(), maxSetups, ATTACK_SIM_BUDGET, evaluation,
+                () -> deadline.expired());
+        Attack bestAttack = new Attack(unitInfos, 1);
+        if (best >= 0 && candidates.get(best).damagePerTurn > bestAttack.damagePerTurn)
+            bestAttack = candidates.get(best);
+        GameIO.debug().println("Attack candidates: " + candidates.size() + ", simulated: " + simulated[0]);
 
         final long time4 = System.currentTimeMillis();
         GameIO.debug().println("Prediction and decide attack: " + ((time4 - time3) / 10) / 100.0);
 
+        boolean attacking = false;
+        Attack nextSavedAttack = null;
         if (bestAttack != null && bestAttack.turnsToWait == 0) {
             bestAttack.send(move);
-            turnLastAttacked = move.data.turnInfo.turnNumber;
-            savedAttack = null;
+            attacking = true;
         } else if (bestAttack != null && bestAttack.turnsToWait <= 2) {
             for (Coords coords : bestAttack.usedCoords)
                 move.attemptRemoveStructure(coords);
-            savedAttack = bestAttack;
-        } else {
-            savedAttack = null;
+            nextSavedAttack = bestAttack;
         }
         GameIO.debug()
                 .println("Best attack turns: " + bestAttack.turnsToWait + ", damage: " + bestAttack.damagePerTurn);
+        GameIO.debug().println("Simulation cache hits: " + simCache.hits + ", misses: " + simCache.misses);
+
+        // the attack is only remembered if the engine gets this move rather than the fallback
+        if (!deadline.commit()) {
+            GameIO.debug().println("Discarding turn " + move.data.turnInfo.turnNumber + " after the fallback");
+            return;
+        }
+        if (attacking)
+            turnLastAttacked = move.data.turnInfo.turnNumber;
+        savedAttack = nextSavedAttack;
+    }
+
+    @Override
+    public TurnDeadline turnDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Only the first frame of each action phase is processed, and its events are not read.
+     */
+    @Override
+    public FrameSubscription actionFrames() {
+        return FrameSubscription.firstFrame().lazyEvents();
     }
 
     /**
@@ -254,7 +348,7 @@ public class StrategyMain implements GameLoop {
         }
 
         // // Add locations where a support was destroyed
-        // for (FrameData.Events.DeathEvent death : move.data.events.death) {
+        // for (FrameData.Events.DeathEvent death : move.data.events().death) {
         // if (death.unitOwner == PlayerId.Player1 && death.destroyedUnitType ==
         // UnitType.Support) {
         // supportCoords.addFirst(death.coords);
@@ -262,65 +356,108 @@ public class StrategyMain implements GameLoop {
         // }
     }
 
-    private List<UnitPlacement> findBestBuild(GameState move, Defense defense, List<UnitPlacement> currentAttacks,
-            List<Double> currentWeights) {
+    // the results of the attacks in evaluator are the current ones followed by those in later turns
+    private List<UnitPlacement> findBestBuild(GameState move, Defense defense, BuildEvaluator evaluator,
+            List<UnitPlacement> currentAttacks, List<Double> currentWeights, List<Double> waitTurns) {
         // final long startTime = System.currentTimeMillis();
 
-        List<UnitPlacement> nextAttacks = new ArrayList<>();
-        List<Double> waitTurns = new ArrayList<>();
         double initialTurns = bitsToTurns(move.data.p2Stats.bits, move.data.turnInfo.turnNumber);
-        for (int t = 1; t < DEFENSE_LOOKAHEAD; t++) {
-            double bits = nextBits(move.data.p2Stats.bits, move.data.turnInfo.turnNumber, t);
-            for (UnitPlacement attack : defense.opponentAttacks(bits)) {
-                nextAttacks.add(attack);
-                waitTurns.add(initialTurns + t);
-            }
-        }
+        List<Double> currentTurns = Collections.nCopies(currentAttacks.size(), initialTurns);
+        int numCurrent = currentAttacks.size();
 
+        SimulationResult[] base = evaluator.results(List.of(List.of()), () -> false)[0];
+        SimulationResult[] nextBase = Arrays.copyOfRange(base, numCurrent, base.length);
         Set<Coords> noBuildZone = savedAttack != null ? savedAttack.usedCoords : new TreeSet<>();
-        List<List<UnitPlacement>> options = defense.buildOptions(nextAttacks, move.data.p1Stats.cores, noBuildZone);
+        List<List<UnitPlacement>> options = defense.buildOptions(nextBase, move.data.p1Stats.cores, noBuildZone);
         // GameIO.debug().println("num options: " + options.size());
-        Collections.shuffle(options);
-
-        List<Double> baseDamagesNow = defense.attackDamages(currentAttacks, initialTurns, null);
-        List<Double> baseDamagesFuture = defense.attackDamages(nextAttacks, waitTurns, null);
-        double baseDamage = DEFENSE_WEIGHT_CURRENT * weightedSum(baseDamagesNow, currentWeights)
-                + (1 - DEFENSE_WEIGHT_CURRENT) * weightedSum(baseDamagesFuture, baseDamagesFuture);
-
-        // GameIO.debug().println("base damage: " + baseDamage);
-        List<UnitPlacement> bestPlacement = null;
-        double mostDamageReduction = MIN_DAMAGE_REDUCT_TO_BUILD;
-        for (int i = 0; i < Math.min(MAX_BUILD_OPTIONS, options.size()); i++) {
-            List<UnitPlacement> build = options.get(i);
-            if (build.isEmpty())
-                continue;
-
-            List<Double> damagesNow = defense.attackDamages(currentAttacks, initialTurns, build);
-            List<Double> damagesFuture = defense.attackDamages(nextAttacks, waitTurns, build);
-            // using attack weightings based on base before builds
-            double damage = DEFENSE_WEIGHT_CURRENT * weightedSum(damagesNow, currentWeights)
-                    + (1 - DEFENSE_WEIGHT_CURRENT) * weightedSum(damagesFuture, damagesFuture);
-            // GameIO.debug()
-            // .println("placement coords: " + build.coords + ", type: " + build.type + ",
-            // damage: " + avgDamage);
-            double cost = defense.coreCost(build);
-            double reduction = (baseDamage - damage) / cost;
-            if (reduction > mostDamageReduction) {
-                mostDamageReduction = reduction;
-                bestPlacement = build;
+        evaluator.shuffle(options);
+
+        List<Double> baseDamagesNow = defense.attackDamages(base, 0, currentTurns);
+        List<Double> baseDamagesFuture = defense.attackDamages(base, numCurrent, waitTurns);
+
+        // only the options the influence map of the base results rates best per core are simulated, with ties left
+        // in their shuffled order so that mostly the same ones are chosen in each iteration
+        List<Double> threats = new ArrayList<>();
+        List<Double> nowWeights = normalized(currentWeights, DEFENSE_WEIGHT_CURRENT);
+        List<Double> futureWeights = normalized(baseDamagesFuture, 1 - DEFENSE_WEIGHT_CURRENT);
+        for (int i = 0; i < numCurrent; i++)
+            threats.add(nowWeights.get(i) * baseDamagesNow.get(i));
+        for (int i = 0; i < futureWeights.size(); i++)
+            threats.add(futureWeights.get(i) * baseDamagesFuture.get(i));
+        InfluenceMap influence = new InfluenceMap(defense.board, unitInfos, base, threats);
+        List<List<UnitPlacement>> ranked = new ArrayList<>();
+        Map<List<UnitPlacement>, Double> scores = new HashMap<>();
+        for (List<UnitPlacement> option : options) {
+            if (!option.isEmpty()) {
+                ranked.add(option);
+                scores.put(option, influence.score(option) / defense.coreCost(option));
             }
         }
+        ranked.sort(Comparator.comparingDouble(build -> -scores.get(build)));
+        List<List<UnitPlacement>> builds = ranked.subList(0, Math.min(MAX_BUILD_OPTIONS, ranked.size()));
+
+        // builds are first simulated against the most threatening attacks, and those which prevent the most damage per
+        // core against the attacks simulated so far are kept and simulated against more, within the budget
+        List<Double> turns = new ArrayList<>(currentTurns);
+        turns.addAll(waitTurns);
+        List<Integer> attackOrder = new ArrayList<>();
+        for (int a = 0; a < base.length; a++)
+            attackOrder.add(a);
+        attackOrder.sort(Comparator.comparingDouble(a -> -threats.get(a)));
+        double[] reductions = new double[builds.size()];
+        SuccessiveHalving.Evaluation evaluation = (survivors, from, to) -> {
+            List<List<UnitPlacement>> round = new ArrayList<>();
+            for (int c : survivors)
+                round.add(builds.get(c));
+            List<Integer> attacks = attackOrder.subList(0, to);
+            // the best option so far is taken when out of time
+            SimulationResult[][] results = evaluator.results(round, attacks, () -> deadline.expired(BUILD_TIME_SHARE));
+            double baseDamage = defenseDamage(defense, base, attacks, numCurrent, turns, currentWeights);
+            double[] roundReductions = new double[survivors.size()];
+            for (int i = 0; i < survivors.size(); i++) {
+                SimulationResult[] sims = results[i];
+                roundReductions[i] = Double.NaN;
+                if (attacks.stream().anyMatch(a -> sims[a] == null))
+                    continue;
+                // using attack weightings based on base before builds
+                double damage = defenseDamage(defense, sims, attacks, numCurrent, turns, currentWeights);
+                roundReductions[i] = (baseDamage - damage) / defense.coreCost(round.get(i));
+                reductions[survivors.get(i)] = roundReductions[i];
+            }
+            return roundReductions;
+        };
+        int best = SuccessiveHalving.best(builds.size(), base.length, BUILD_SIM_BUDGET, evaluation,
+                () -> deadline.expired(BUILD_TIME_SHARE));
 
         // final long endTime = System.currentTimeMillis();
         // GameIO.debug().println("Single build iteration: " + ((endTime - startTime) /
         // 10) / 100.0);
 
-        return bestPlacement;
+        return best >= 0 && reductions[best] > MIN_DAMAGE_REDUCT_TO_BUILD ? builds.get(best) : null;
+    }
+
+    // damage of the attacks with the given indices, weighted as in findBestBuild, from their results
+    private double defenseDamage(Defense defense, SimulationResult[] sims, List<Integer> attacks, int numCurrent,
+            List<Double> turns, List<Double> currentWeights) {
+        List<Double> damagesNow = new ArrayList<>();
+        List<Double> weightsNow = new ArrayList<>();
+        List<Double> damagesFuture = new ArrayList<>();
+        for (int a : attacks) {
+            double damage = defense.attackDamage(sims[a], turns.get(a));
+            if (a < numCurrent) {
+                damagesNow.add(damage);
+                weightsNow.add(currentWeights.get(a));
+            } else {
+                damagesFuture.add(damage);
+            }
+        }
+        return DEFENSE_WEIGHT_CURRENT * weightedSum(damagesNow, weightsNow)
+                + (1 - DEFENSE_WEIGHT_CURRENT) * weightedSum(damagesFuture, damagesFuture);
     }
 
     private List<Coords> findUselessStructures(GameState move, StructBoard board) {
 
-        Defense defense = new Defense(board, move, unitInfos);
+        Defense defense = new Defense(board, move, unitInfos, simCache);
         double bits2turns = nextBits(move.data.p2Stats.bits, move.data.turnInfo.turnNumber, 2);
         List<UnitPlacement> testAttacks = defense.opponentAttacks(bits2turns);
 
@@ -335,15 +472,32 @@ public class StrategyMain implements GameLoop {
             }
         }
 
-        List<Double> baseDamages = defense.attackDamages(testAttacks, 2, null);
+        // one pass over the test attacks finds what each structure did in them
+        SimulationResult[] baseSims = defense.attributedAttacks(testAttacks);
+        List<Double> baseDamages = defense.attackDamages(baseSims, 0, Collections.nCopies(testAttacks.size(), 2.0));
         double baseDamage = weightedSum(baseDamages, baseDamages);
         // System.err.println("base damage: " + baseDamage);
-        List<Coords> toRemove = new ArrayList<>();
+
+        List<UnitPlacement> inert = new ArrayList<>();
+        List<UnitPlacement> ambiguous = new ArrayList<>();
         for (UnitPlacement rem : removals) {
+            if (inert(baseSims, rem.coords))
+                inert.add(rem);
+            else
+                ambiguous.add(rem);
+        }
+        List<Coords> toRemove = new ArrayList<>();
+        removeInert(defense, testAttacks, inert, baseDamage, toRemove, ambiguous);
+        GameIO.debug().println("Inert structures: " + toRemove.size() + ", others: " + ambiguous.size());
+
+        // the others are removed if the attacks do little more damage when simulated without them
+        for (UnitPlacement rem : ambiguous) {
+            if (deadline.expired(REMOVAL_TIME_SHARE))
+                break;
             List<Double> damages = defense.attackDamages(testAttacks, 2, List.of(rem));
             double avgDamage = weightedSum(damages, damages);
             Structure struct = defense.board.getLocation(rem.coords);
-            double cost = unitInfos.getInfo(struct.type, struct.upgraded).cost1.getAsDouble();
+            double cost = unitInfos.cost1[struct.type.ordinal()][struct.upgraded ? 1 : 0];
             if (avgDamage - baseDamage <= MAX_DAMAGE_REDUCT_TO_REMOVE * cost) {
                 // System.err.println("remove " + rem.coords + ", damage: " + avgDamage);
                 toRemove.add(rem.coords);
@@ -353,7 +507,8 @@ public class StrategyMain implements GameLoop {
         return toRemove;
     }
 
-    private List<StructBoard> opponentBasePredictions(StructBoard currentBoard, double cores, int number) {
+    private List<StructBoard> opponentBasePredictions(StructBoard currentBoard, double cores, int number,
+            Random random) {
         // make list of currently missing former opponent structures sorted by frequency
         List<Map.Entry<UnitPlacement, Double>> list = new LinkedList<>(p2StructHistory.entrySet());
         for (Iterator<Map.Entry<UnitPlacement, Double>> itr = list.iterator(); itr.hasNext();) {
@@ -365,7 +520,8 @@ public class StrategyMain implements GameLoop {
 
         List<StructBoard> setups = new ArrayList<>();
         setups.add(currentBoard);
-        for (int t = 0; t < number; t++) {
+        // fewer setups are predicted when out of time
+        for (int t = 0; t < number && !deadline.expired(); t++) {
             StructBoard board = new StructBoard(currentBoard);
             setups.add(board);
             List<UnitPlacement> placements = new LinkedList<>();
@@ -416,6 +572,47 @@ public class StrategyMain implements GameLoop {
     // return list;
     // }
 
+    // Remove structures which did nothing in the test attacks. Removing one of them changes no result, but removing
+    // several can open a path which none of them opens alone, so they are simulated together, and split in half if
+    // that does more damage. A single one which does is left to be simulated with the others.
+    private void removeInert(Defense defense, List<UnitPlacement> testAttacks, List<UnitPlacement> inert,
+            double baseDamage, List<Coords> toRemove, List<UnitPlacement> others) {
+        if (inert.isEmpty() || deadline.expired(REMOVAL_TIME_SHARE))
+            return;
+        List<Double> damages = defense.attackDamages(testAttacks, 2, inert);
+        if (weightedSum(damages, damages) <= baseDamage) {
+            for (UnitPlacement rem : inert) {
+                toRemove.add(rem.coords);
+                defense.remove(rem.coords);
+            }
+        } else if (inert.size() == 1) {
+            others.add(inert.get(0));
+        } else {
+            int mid = inert.size() / 2;
+            removeInert(defense, testAttacks, inert.subList(0, mid), baseDamage, toRemove, others);
+            removeInert(defense, testAttacks, inert.subList(mid, inert.size()), baseDamage, toRemove, others);
+        }
+    }
+
+    // whether a structure did nothing in any of the attributed results
+    private static boolean inert(SimulationResult[] sims, Coords coords) {
+        for (SimulationResult sim : sims)
+            if (!sim.attribution.inert(coords))
+                return false;
+        return true;
+    }
+
+    // weights scaled to sum to share, or all zero if they sum to zero
+    private List<Double> normalized(List<Double> weights, double share) {
+        double weightSum = 0;
+        for (double weight : weights)
+            weightSum += weight;
+        List<Double> ret = new ArrayList<>();
+        for (double weight : weights)
+            ret.add(weightSum > 0 ? share * weight / weightSum : 0);
+        return ret;
+    }
+
     private double weightedSum(List<Double> values, List<Double> weights) {
         double totalSum = 0;
         double weightSum = 0;
@@ -438,24 +635,22 @@ public class StrategyMain implements GameLoop {
         return -4 * Math.log(1 - bits / (4 * bitsPerTurn));
     }
 
-    private Attack findBestAttack(GameState move, List<StructBoard> setups, List<Coords> interceptorCoords,
-            int numSupports, int turnsAhead) {
+    private List<Attack> attackCandidates(GameState move, int numSupports, int turnsAhead, Random random) {
         // Find all scout and all demolisher attacks with current setup for this turn
         int turnNumber = move.data.turnInfo.turnNumber;
-        int sinceLastAttack = turnNumber - turnLastAttacked;
 
         double bits = nextBits(move.data.p1Stats.bits, turnNumber, turnsAhead);
-        double scoutCost = unitInfos.getInfo(UnitType.Scout).cost2.getAsDouble();
-        double demolisherCost = unitInfos.getInfo(UnitType.Demolisher).cost2.getAsDouble();
+        double scoutCost = unitInfos.cost2[UnitType.Scout.ordinal()][0];
+        double demolisherCost = unitInfos.cost2[UnitType.Demolisher.ordinal()][0];
         int numScouts = (int) (bits / scoutCost);
         int numDemolishers = (int) (bits / demolisherCost);
 
-        Attack bestAttack = new Attack(unitInfos, 1);
+        List<Attack> candidates = new ArrayList<>();
 
         List<Coords> edgeCoords = new ArrayList<>();
         edgeCoords.addAll(Arrays.asList(MapBounds.EDGE_LISTS[MapBounds.EDGE_BOTTOM_LEFT]));
         edgeCoords.addAll(Arrays.asList(MapBounds.EDGE_LISTS[MapBounds.EDGE_BOTTOM_RIGHT]));
-        Collections.shuffle(edgeCoords);
+        Collections.shuffle(edgeCoords, random);
 
         for (int i = 0; i < ATTACK_SPAWN_LOCATIONS; i++) {
             Coords spawnCoords = edgeCoords.get(i);
@@ -478,9 +673,7 @@ public class StrategyMain implements GameLoop {
                         built++;
                     }
                 }
-                attack.test(move, setups, interceptorCoords, sinceLastAttack);
-                if (attack.damagePerTurn > bestAttack.damagePerTurn)
-                    bestAttack = attack;
+                candidates.add(attack);
                 // need at least 2 turns to remove structures
                 if (turnsAhead < 2)
                     break;
@@ -500,14 +693,12 @@ public class StrategyMain implements GameLoop {
                         built++;
                     }
                 }
-                attack.test(move, setups, interceptorCoords, sinceLastAttack);
-                if (attack.damagePerTurn > bestAttack.damagePerTurn)
-                    bestAttack = attack;
+                candidates.add(attack);
                 // need at least 2 turns to remove structures
                 if (turnsAhead < 2)
                     break;
             }
         }
-        return bestAttack;
+        return candidates;
     }
 }
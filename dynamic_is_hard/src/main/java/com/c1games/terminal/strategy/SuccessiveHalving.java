@@ -0,0 +1,70 @@
+package com.c1games.terminal.strategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Successive halving of candidates which are each scored from a list of scenarios to simulate, so that a fixed budget
+ * of simulations goes mostly to the candidates still in contention. Every candidate is first scored on its first few
+ * scenarios. Then in each round the better half is kept and scored on more, until those left have been scored on all
+ * of them or the budget is spent. Each round spends an equal share of what is left of the budget, so that the last
+ * candidates standing are scored on the most scenarios.
+ * <p>
+ * Scenarios are scored in order, so the most informative should come first.
+ */
+public class SuccessiveHalving {
+    /**
+     * Scores of candidates on a number of their first scenarios.
+     */
+    public interface Evaluation {
+        /**
+         * Scores of the candidates, in order, from their scenarios up to to, of which those up to from were
+         * simulated in earlier rounds. Higher is better, and NaN is for candidates not scored in time, which keep the
+         * score from the round before.
+         */
+        double[] scores(List<Integer> candidates, int from, int to);
+    }
+
+    /**
+     * Index of the best candidate by score in the last round, or -1 if none was scored, after spending about budget
+     * simulations. No more rounds are started once stop is true.
+     */
+    public static int best(int numCandidates, int numScenarios, int budget, Evaluation evaluation,
+            BooleanSupplier stop) {
+        double[] scores = new double[numCandidates];
+        List<Integer> survivors = new ArrayList<>();
+        for (int c = 0; c < numCandidates; c++) {
+            scores[c] = Double.NaN;
+            survivors.add(c);
+        }
+        // best first, and those never scored last
+        Comparator<Integer> byScore = Comparator
+                .comparingDouble(c -> Double.isNaN(scores[c]) ? Double.POSITIVE_INFINITY : -scores[c]);
+
+        int rounds = 1;
+        while (1 << rounds < numCandidates)
+            rounds++;
+        int scenarios = 0;
+        int spent = 0;
+        for (int round = 0; !survivors.isEmpty() && scenarios < numScenarios && (round == 0 || spent < budget)
+                && !stop.getAsBoolean(); round++) {
+            if (round > 0) {
+                survivors.sort(byScore);
+                survivors = new ArrayList<>(survivors.subList(0, (survivors.size() + 1) / 2));
+            }
+            int more = Math.max(1, (budget - spent) / (Math.max(1, rounds - round) * survivors.size()));
+            int to = Math.min(numScenarios, scenarios + more);
+            double[] roundScores = evaluation.scores(survivors, scenarios, to);
+            for (int i = 0; i < survivors.size(); i++)
+                if (!Double.isNaN(roundScores[i]))
+                    scores[survivors.get(i)] = roundScores[i];
+            spent += (to - scenarios) * survivors.size();
+            scenarios = to;
+        }
+
+        survivors.sort(byScore);
+        return survivors.isEmpty() || Double.isNaN(scores[survivors.get(0)]) ? -1 : survivors.get(0);
+    }
+}
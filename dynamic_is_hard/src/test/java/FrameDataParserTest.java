@@ -0,0 +1,67 @@
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.serialization.FrameDataParser;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FrameDataParserTest {
+    private static final String DEPLOY_FRAME = "{\"p2Units\":[[],[],[],[],[],[],[],[]],\"turnInfo\":[0,0,-1,0],\"p1Stats\":[30.0,40.0,5.0,0],\"p1Units\":[[],[],[],[],[],[],[],[]],\"p2Stats\":[30.0,40.0,5.0,0],\"events\":{\"selfDestruct\":[],\"breach\":[],\"damage\":[],\"shield\":[],\"move\":[],\"spawn\":[],\"death\":[],\"attack\":[],\"melee\":[]}}\n";
+    private static final String ACTION_FRAME = "{\"p2Units\":[[[13,27,60.0,\"10\"]],[],[[14,16,75.0,\"12\"]],[],[],[[15,20,40.0,\"14\"]],[],[[13,27,120.0,\"10\"]]],\"turnInfo\":[1,4,12,3],\"p1Stats\":[28.0,12.5,0.75,1375],\"p1Units\":[[[0,13,60.0,\"1\"],[27,13,12.25,\"2\"]],[],[[3,12,75.0,\"3\"]],[[13,3,15.0,\"16\"]],[],[],[],[]],\"p2Stats\":[30.0,3.0,4.25,920],\"events\":{\"selfDestruct\":[],\"breach\":[[[13,27],1,3,\"17\",1]],\"damage\":[[[14,16],6.0,3,\"16\",2]],\"shield\":[[[12,8],[13,3],3.0,1,\"5\",\"16\",1]],\"move\":[[[13,2],[13,3],[14,3],3,\"16\",1]],\"spawn\":[[[13,0],3,\"16\",1,false]],\"death\":[[[15,20],5,\"14\",2,false]],\"attack\":[[[14,16],[13,3],5.0,2,\"12\",\"16\",2]],\"melee\":[]},\"endStats\":{\"player1\":{\"dynamic_resource_spent\":12.5,\"dynamic_resource_destroyed\":3.0,\"dynamic_resource_spoiled\":0.0,\"stationary_resource_spent\":40.0,\"stationary_resource_left_on_board\":31.5,\"points_scored\":2,\"crashed\":false,\"total_computation_time\":5312},\"player2\":null,\"duration\":8.25,\"turns\":4,\"frames\":97,\"winner\":1}}\n";
+
+    @Test
+    public void test() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        UnitTypeAtlas atlas = new UnitTypeAtlas(config);
+        Gson gson = FrameData.gson(atlas);
+        FrameDataParser parser = new FrameDataParser(atlas);
+
+        for (String frame : new String[] { DEPLOY_FRAME, ACTION_FRAME }) {
+            FrameData expected = gson.fromJson(frame, FrameData.class);
+            FrameData parsed = parser.parse(ByteBuffer.wrap(frame.trim().getBytes(StandardCharsets.ISO_8859_1)));
+
+            assertEquals(expected.toString(), parsed.toString());
+            assertEquals(expected.events.toString(), parsed.events.toString());
+            assertEquals(String.valueOf(expected.endStats), String.valueOf(parsed.endStats));
+        }
+    }
+
+    @Test
+    public void partial() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        UnitTypeAtlas atlas = new UnitTypeAtlas(config);
+        FrameData expected = FrameData.gson(atlas).fromJson(ACTION_FRAME, FrameData.class);
+        FrameDataParser parser = new FrameDataParser(atlas);
+        ByteBuffer frame = ByteBuffer.wrap(ACTION_FRAME.trim().getBytes(StandardCharsets.ISO_8859_1));
+
+        assertEquals(expected.turnInfo.toString(), parser.peekTurnInfo(frame).toString());
+        assertEquals(0, frame.position());
+
+        FrameData parsed = parser.parse(frame, false, true);
+        assertNull(parsed.p1Units);
+        assertNull(parsed.events);
+        assertEquals(expected.p2Stats.toString(), parsed.p2Stats.toString());
+        assertEquals(expected.events.toString(), parsed.events().toString());
+    }
+
+    @Test
+    public void selfDestructTargets() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        FrameDataParser parser = new FrameDataParser(new UnitTypeAtlas(config));
+
+        FrameData parsed = parser.parse("{\"events\":{\"selfDestruct\":[[[14,14],[[13,15],[15,15]],15.0,4,\"20\",1]]}}");
+        Coords target = parsed.events.selfDestruct.get(0).targets.get(1);
+
+        assertEquals(15, target.x);
+        assertEquals(15, target.y);
+    }
+}
@@ -0,0 +1,71 @@
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.GameStateTracker;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.map.Unit;
+import com.c1games.terminal.algo.serialization.FrameDataParser;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GameStateTrackerTest {
+    // consecutive frames of one action phase, in which a scout spawns, walks into range of a turret, takes damage from
+    // it and is shielded, then dies, and which leave out some empty event lists
+    private static final String[] ACTION_FRAMES = {
+            "{\"p2Units\":[[],[],[[14,16,75.0,\"12\"]],[],[],[],[],[]],\"turnInfo\":[1,4,0,3],\"p1Stats\":[28.0,12.5,0.75,0],\"p1Units\":[[[0,13,60.0,\"1\"]],[[12,4,30.0,\"5\"]],[[3,12,75.0,\"3\"]],[],[],[],[],[[3,12,75.0,\"3\"]]],\"p2Stats\":[30.0,3.0,4.25,0],\"events\":{\"selfDestruct\":[],\"breach\":[],\"damage\":[],\"shield\":[],\"move\":[],\"spawn\":[],\"death\":[],\"attack\":[],\"melee\":[]}}",
+            "{\"p2Units\":[[],[],[[14,16,75.0,\"12\"]],[],[],[],[],[]],\"turnInfo\":[1,4,1,3],\"p1Stats\":[28.0,11.5,0.75,0],\"p1Units\":[[[0,13,60.0,\"1\"]],[[12,4,30.0,\"5\"]],[[3,12,75.0,\"3\"]],[[13,0,15.0,\"16\"]],[],[],[],[[3,12,75.0,\"3\"]]],\"p2Stats\":[30.0,3.0,4.25,0],\"events\":{\"spawn\":[[[13,0],3,\"16\",1,false]]}}",
+            "{\"p2Units\":[[],[],[[14,16,75.0,\"12\"]],[],[],[],[],[]],\"turnInfo\":[1,4,2,3],\"p1Stats\":[28.0,11.5,0.75,0],\"p1Units\":[[[0,13,60.0,\"1\"]],[[12,4,30.0,\"5\"]],[[3,12,75.0,\"3\"]],[[13,1,15.0,\"16\"]],[],[],[],[[3,12,75.0,\"3\"]]],\"p2Stats\":[30.0,3.0,4.25,0],\"events\":{\"selfDestruct\":[],\"breach\":[],\"damage\":[],\"move\":[[[13,0],[13,1],[13,2],3,\"16\",1]],\"death\":[]}}",
+            "{\"p2Units\":[[],[],[[14,16,75.0,\"12\"]],[],[],[],[],[]],\"turnInfo\":[1,4,3,3],\"p1Stats\":[28.0,11.5,0.75,0],\"p1Units\":[[[0,13,60.0,\"1\"]],[[12,4,30.0,\"5\"]],[[3,12,75.0,\"3\"]],[[13,2,12.0,\"16\"]],[],[],[],[[3,12,75.0,\"3\"]]],\"p2Stats\":[30.0,3.0,4.25,0],\"events\":{\"damage\":[[[13,2],6.0,3,\"16\",1]],\"shield\":[[[12,4],[13,2],3.0,1,\"5\",\"16\",1]],\"move\":[[[13,1],[13,2],[13,3],3,\"16\",1]],\"attack\":[[[14,16],[13,2],6.0,2,\"12\",\"16\",2]]}}",
+            "{\"p2Units\":[[],[],[[14,16,75.0,\"12\"]],[],[],[],[],[]],\"turnInfo\":[1,4,4,3],\"p1Stats\":[28.0,11.5,0.75,0],\"p1Units\":[[[0,13,60.0,\"1\"]],[[12,4,30.0,\"5\"]],[[3,12,75.0,\"3\"]],[],[],[],[],[[3,12,75.0,\"3\"]]],\"p2Stats\":[30.0,3.0,4.25,0],\"events\":{\"damage\":[[[13,2],12.0,3,\"16\",1]],\"death\":[[[13,2],3,\"16\",1,false]]}}",
+    };
+
+    @Test
+    public void replay() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        FrameDataParser parser = new FrameDataParser(new UnitTypeAtlas(config));
+        GameStateTracker tracker = new GameStateTracker(config);
+
+        GameState first = null;
+        for (String json : ACTION_FRAMES) {
+            FrameData frame = parser.parse(json);
+            GameState tracked = tracker.update(frame);
+            // every frame follows from the last, so the first game state is kept up to date rather than built again
+            if (first == null)
+                first = tracked;
+            assertSame(first, tracked);
+
+            GameState rebuilt = new GameState(config, parser.parse(json));
+            assertEquals(units(rebuilt), units(tracked));
+            assertEquals(frame.turnInfo.toString(), tracked.data.turnInfo.toString());
+        }
+    }
+
+    // type, owner, id, health, and markers of every unit on each tile
+    private static String units(GameState state) {
+        StringBuilder out = new StringBuilder();
+        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
+            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
+                List<String> units = new ArrayList<>();
+                for (Unit unit : state.getUnitsAt(new Coords(x, y)))
+                    units.add(unit.type + " " + unit.owner + " " + unit.id + " " + unit.health
+                            + (unit.upgraded ? " upgraded" : "") + (unit.removing ? " removing" : ""));
+                if (units.isEmpty())
+                    continue;
+                // units on a tile are in the order they arrived, which is not the same when rebuilt
+                Collections.sort(units);
+                out.append(x).append(',').append(y).append(' ').append(units).append('\n');
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,126 @@
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.action.ActionSimulator;
+import com.c1games.terminal.algo.action.ArraySimulator;
+import com.c1games.terminal.algo.action.Simulator;
+import com.c1games.terminal.algo.action.StructBoard;
+import com.c1games.terminal.algo.action.UnitInformationContainer;
+import com.c1games.terminal.algo.map.GameState;
+import com.c1games.terminal.algo.map.MapBounds;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ArraySimulator is meant to reproduce ActionSimulator exactly, so both are run on the same random boards and spawns
+ * and must report the same outcome.
+ */
+public class SimulatorEquivalenceTest {
+    private static final int BOARDS = 2000;
+    private static final long SEED = 1;
+
+    @Test
+    public void randomBoards() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        UnitTypeAtlas atlas = new UnitTypeAtlas(config);
+        UnitInformationContainer unitInfos = new UnitInformationContainer(config);
+        Random random = new Random(SEED);
+
+        int compared = 0;
+        for (int b = 0; b < BOARDS; b++) {
+            GameState move = new GameState(config, FrameData.gson(atlas).fromJson(randomFrame(random), FrameData.class));
+            StructBoard board = new StructBoard(move, unitInfos, false);
+            List<Object[]> spawns = randomSpawns(random);
+
+            String expected = run(new ActionSimulator(unitInfos, board, move), spawns);
+            String actual = run(new ArraySimulator(unitInfos, board, move), spawns);
+            // the reference rejects some of the odder random spawns by throwing, and there is nothing to compare
+            if (expected == null)
+                continue;
+            assertEquals("board " + b, expected, actual);
+            compared++;
+        }
+        assertTrue(compared > BOARDS * 9 / 10);
+    }
+
+    // spawn results and outcome, or null if the simulator threw
+    private static String run(Simulator sim, List<Object[]> spawns) {
+        StringBuilder out = new StringBuilder();
+        try {
+            for (Object[] spawn : spawns)
+                out.append(sim.spawnUnits((Coords) spawn[0], (UnitType) spawn[1], (Integer) spawn[2]) ? 'T' : 'F');
+            sim.run();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return out + " " + sim.p1LivesLost + " " + sim.p2LivesLost + " " + sim.p1CoresLost + " " + sim.p2CoresLost
+                + " " + sim.unitPath + " " + sim.p1LostStructCoords;
+    }
+
+    // mostly mobile units on edges, and sometimes anything anywhere
+    private static List<Object[]> randomSpawns(Random random) {
+        UnitType[] types = UnitType.values();
+        List<Object[]> spawns = new ArrayList<>();
+        int count = 1 + random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            Coords coords = MapBounds.EDGE_LISTS[random.nextInt(4)][random.nextInt(14)];
+            UnitType type = random.nextDouble() < 0.8 ? types[3 + random.nextInt(3)] : types[random.nextInt(types.length)];
+            if (random.nextDouble() < 0.2)
+                coords = new Coords(random.nextInt(MapBounds.BOARD_SIZE), random.nextInt(MapBounds.BOARD_SIZE));
+            spawns.add(new Object[] { coords, type, random.nextInt(12) });
+        }
+        return spawns;
+    }
+
+    // a deploy phase frame with random structures of random health for both players, some upgraded
+    private static String randomFrame(Random random) {
+        List<List<StringBuilder>> units = new ArrayList<>();
+        for (int player = 0; player < 2; player++) {
+            List<StringBuilder> lists = new ArrayList<>();
+            for (int t = 0; t < 8; t++)
+                lists.add(new StringBuilder());
+            units.add(lists);
+        }
+        double density = random.nextDouble() * 0.5;
+        int id = 100;
+        for (int x = 0; x < MapBounds.BOARD_SIZE; x++) {
+            for (int y = 0; y < MapBounds.BOARD_SIZE; y++) {
+                if (!MapBounds.ARENA[x][y] || random.nextDouble() > density)
+                    continue;
+                List<StringBuilder> lists = units.get(y < MapBounds.BOARD_SIZE / 2 ? 0 : 1);
+                int t = random.nextInt(3);
+                appendUnit(lists.get(t), x, y, 1 + random.nextInt(t == 0 ? 120 : 75), id++, random);
+                if (random.nextDouble() < 0.3)
+                    appendUnit(lists.get(7), x, y, 0, id++, random);
+            }
+        }
+        return "{\"p2Units\":" + unitLists(units.get(1)) + ",\"turnInfo\":[0,5,-1,0],\"p1Stats\":[30.0,40.0,5.0,0],"
+                + "\"p1Units\":" + unitLists(units.get(0)) + ",\"p2Stats\":[30.0,40.0,5.0,0],\"events\":{"
+                + "\"selfDestruct\":[],\"breach\":[],\"damage\":[],\"shield\":[],\"move\":[],\"spawn\":[],"
+                + "\"death\":[],\"attack\":[],\"melee\":[]}}";
+    }
+
+    private static void appendUnit(StringBuilder list, int x, int y, int health, int id, Random random) {
+        if (list.length() > 0)
+            list.append(',');
+        String unitId = random.nextInt(5) == 0 ? "spawned" : String.valueOf(id);
+        list.append("[" + x + "," + y + "," + health + ".0,\"" + unitId + "\"]");
+    }
+
+    private static String unitLists(List<StringBuilder> lists) {
+        StringBuilder out = new StringBuilder("[");
+        for (int t = 0; t < lists.size(); t++)
+            out.append(t > 0 ? ",[" : "[").append(lists.get(t)).append(']');
+        return out.append(']').toString();
+    }
+}
@@ -0,0 +1,64 @@
+import com.c1games.terminal.algo.Config;
+import com.c1games.terminal.algo.Coords;
+import com.c1games.terminal.algo.FrameData;
+import com.c1games.terminal.algo.map.SpawnCommand;
+import com.c1games.terminal.algo.serialization.CoordsTypeAdapter;
+import com.c1games.terminal.algo.serialization.JsonDeserializeClassFromTuple;
+import com.c1games.terminal.algo.serialization.PlayerUnitTypeAdapter;
+import com.c1games.terminal.algo.serialization.SpawnCommandWriter;
+import com.c1games.terminal.algo.units.UnitType;
+import com.c1games.terminal.algo.units.UnitTypeAtlas;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TupleSerializeTest {
+    @Test
+    public void spawnCommands() throws Exception {
+        Config config = Config.GSON.fromJson(new String(Files.readAllBytes(Paths.get("../game-configs.json"))), Config.class);
+        UnitTypeAtlas atlas = new UnitTypeAtlas(config);
+        Gson gson = SpawnCommand.gson(atlas);
+        SpawnCommandWriter writer = new SpawnCommandWriter(atlas);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        List<SpawnCommand> build = List.of(new SpawnCommand(UnitType.Support, 4, 7),
+                new SpawnCommand(UnitType.Upgrade, 13, 0), new SpawnCommand(UnitType.Remove, 27, 13));
+        List<SpawnCommand> deploy = List.of();
+        for (int turn = 0; turn < 2; turn++) {
+            writer.write(build);
+            writer.write(deploy);
+            writer.flush(Channels.newChannel(out));
+            assertEquals(gson.toJson(build) + "\n" + gson.toJson(deploy) + "\n",
+                    new String(out.toByteArray(), StandardCharsets.UTF_8));
+            out.reset();
+        }
+    }
+
+    @Test
+    public void tuples() {
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(Coords.class, new JsonDeserializeClassFromTuple<>(Coords.class, () -> new Coords(-1, -1)))
+                .registerTypeAdapter(FrameData.PlayerUnit.class, new JsonDeserializeClassFromTuple<>(FrameData.PlayerUnit.class, FrameData.PlayerUnit::new))
+                .create();
+        Gson adapted = new GsonBuilder()
+                .registerTypeAdapter(Coords.class, new CoordsTypeAdapter())
+                .registerTypeAdapter(FrameData.PlayerUnit.class, new PlayerUnitTypeAdapter())
+                .create();
+
+        String coords = "[13, 27.0, 5]";
+        assertEquals(reflective.fromJson(coords, Coords.class).toString(), adapted.fromJson(coords, Coords.class).toString());
+        String unit = "[3, 12, 75.25, \"3\"]";
+        assertEquals(reflective.fromJson(unit, FrameData.PlayerUnit.class).toString(),
+                adapted.fromJson(unit, FrameData.PlayerUnit.class).toString());
+        assertEquals(unit.replace(" ", ""), adapted.toJson(adapted.fromJson(unit, FrameData.PlayerUnit.class)));
+    }
+}